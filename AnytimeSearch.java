@@ -0,0 +1,199 @@
+/**
+ * AnytimeSearch - Monte Carlo evaluation of candidate plays that has a best play available at any moment.
+ *
+ * Rather than spending a fixed time slice on each candidate in turn (so that no answer exists until the last
+ * candidate has had its slice), simulations are spread round-robin over all candidates, so that at every point all
+ * candidates have about equally many samples.  The current best play, its mean score and the approximate
+ * probability that it outscores the runner-up are kept up to date, readable from any thread, and published to an
+ * optional SearchListener whenever the best play changes and at least every publish interval.  A search ends at
+ * its deadline or as soon as another thread calls cancel(), returning the best play so far.
+ *
+ * The simulations themselves are supplied by the player through a Simulator, which evaluates one sampled outcome
+ * of a candidate against the player's own state.
+ */
+public class AnytimeSearch {
+
+	public static final long DEFAULT_PUBLISH_MILLIS = 10; // default maximum milliseconds between published updates
+	private static final int SIZE = PokerSquares.SIZE; // number of rows/columns in square grid
+	private static final int NUM_POS = SIZE * SIZE; // number of positions in square grid
+	private static final int CHECK_INTERVAL = 16; // simulations between clock checks
+
+	/**
+	 * Simulator - performs one simulation of a candidate play.
+	 */
+	public interface Simulator {
+
+		/**
+		 * simulate - simulates play after the given candidate play, leaving the player's state unchanged.
+		 * @param position - row-major position of the candidate play
+		 * @return simulated score
+		 */
+		double simulate(int position);
+
+	}
+
+	private final Simulator simulator; // simulates candidate plays
+	private SearchListener listener; // receives updates, or null
+	private long publishMillis = DEFAULT_PUBLISH_MILLIS; // maximum milliseconds between published updates
+	private final int[] candidates = new int[NUM_POS]; // positions of candidate plays
+	private final RunningStatistics[] stats = new RunningStatistics[NUM_POS]; // simulated scores of each candidate
+	private int numCandidates = 0; // number of candidate plays
+	private volatile boolean cancelled = false; // whether the current search is to end at once
+	private volatile int bestPosition = -1; // position of the current best play
+	private volatile double bestMean = Double.NaN; // mean simulated score of the current best play
+	private volatile double confidence = 0; // approximate probability that the best play outscores the runner-up
+	private volatile long rolloutCount = 0; // simulations performed in the current search
+
+	/**
+	 * Create an anytime search with the given simulator.
+	 * @param simulator simulates candidate plays
+	 * @param listener receives updates of the best play, or null
+	 */
+	public AnytimeSearch(Simulator simulator, SearchListener listener) {
+		this.simulator = simulator;
+		this.listener = listener;
+		for (int i = 0; i < NUM_POS; i++)
+			stats[i] = new RunningStatistics();
+	}
+
+	public void setListener(SearchListener listener) {
+		this.listener = listener;
+	}
+
+	public void setPublishMillis(long publishMillis) {
+		this.publishMillis = publishMillis;
+	}
+
+	/**
+	 * Clear any cancellation, so that the next search runs to its deadline.  Players call this when a new play is
+	 * requested, before any preparation preceding the search, so that an early cancel() still takes effect.
+	 */
+	public void prepare() {
+		cancelled = false;
+	}
+
+	/**
+	 * End the search in progress (or the next one, if called after prepare()) as soon as possible.  Safe to call from
+	 * any thread.
+	 */
+	public void cancel() {
+		cancelled = true;
+	}
+
+	public boolean isCancelled() {
+		return cancelled;
+	}
+
+	/**
+	 * Evaluate the given candidate plays until the deadline or cancellation, and return the best.  Unless cancelled,
+	 * each candidate is simulated at least once.
+	 * @param positions row-major positions of candidate plays
+	 * @param numPositions number of candidate plays (at least one)
+	 * @param endTime deadline in System.currentTimeMillis() time
+	 * @return position of the candidate play with the highest mean simulated score (the first candidate if none has
+	 * been simulated)
+	 */
+	public int search(int[] positions, int numPositions, long endTime) {
+		numCandidates = numPositions;
+		for (int i = 0; i < numCandidates; i++) {
+			candidates[i] = positions[i];
+			stats[i].clear();
+		}
+		bestPosition = candidates[0];
+		bestMean = Double.NaN;
+		confidence = numCandidates == 1 ? 1 : 0;
+		rolloutCount = 0;
+		long count = 0;
+		long nextPublishTime = System.currentTimeMillis() + publishMillis;
+		int next = 0;
+		while (!cancelled) {
+			if (count >= numCandidates && count % CHECK_INTERVAL == 0) {
+				long now = System.currentTimeMillis();
+				if (now >= endTime)
+					break;
+				rolloutCount = count;
+				if (updateBest() || now >= nextPublishTime) {
+					publish(false);
+					nextPublishTime = now + publishMillis;
+				}
+			}
+			stats[next].add(simulator.simulate(candidates[next]));
+			if (++next == numCandidates)
+				next = 0;
+			count++;
+		}
+		rolloutCount = count;
+		updateBest();
+		publish(true);
+		return bestPosition;
+	}
+
+	/**
+	 * Recompute the best play and its confidence.
+	 * @return whether the best play changed
+	 */
+	private boolean updateBest() {
+		int best = -1, second = -1;
+		for (int i = 0; i < numCandidates; i++) {
+			if (stats[i].getCount() == 0)
+				continue;
+			if (best < 0 || stats[i].getMean() > stats[best].getMean()) {
+				second = best;
+				best = i;
+			}
+			else if (second < 0 || stats[i].getMean() > stats[second].getMean())
+				second = i;
+		}
+		if (best < 0)
+			return false;
+		int previous = bestPosition;
+		bestPosition = candidates[best];
+		bestMean = stats[best].getMean();
+		if (numCandidates == 1)
+			confidence = 1;
+		else if (second < 0 || stats[best].getCount() < 2 || stats[second].getCount() < 2)
+			confidence = 0;
+		else {
+			double seBest = stats[best].getStandardError(), seSecond = stats[second].getStandardError();
+			double se = Math.sqrt(seBest * seBest + seSecond * seSecond);
+			double difference = stats[best].getMean() - stats[second].getMean();
+			confidence = se == 0 ? (difference > 0 ? 1 : 0.5) : RunningStatistics.normalCdf(difference / se);
+		}
+		return bestPosition != previous;
+	}
+
+	private void publish(boolean done) {
+		SearchListener l = listener;
+		if (l != null)
+			l.bestPlayUpdated(bestPosition / SIZE, bestPosition % SIZE, bestMean, confidence, rolloutCount, done);
+	}
+
+	/**
+	 * Get the position of the current best play (of the last search, once it has ended).
+	 * @return row-major position of the current best play, or -1 before the first search
+	 */
+	public int getBestPosition() {
+		return bestPosition;
+	}
+
+	public double getBestMean() {
+		return bestMean;
+	}
+
+	/**
+	 * Get the approximate probability that the current best play outscores the runner-up in expectation (normal
+	 * approximation); 0 until both have been simulated at least twice.
+	 * @return confidence in the current best play
+	 */
+	public double getConfidence() {
+		return confidence;
+	}
+
+	/**
+	 * Get the number of simulations performed by the current search (updated periodically while it runs).
+	 * @return number of simulations
+	 */
+	public long getRolloutCount() {
+		return rolloutCount;
+	}
+}
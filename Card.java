@@ -140,6 +140,15 @@ public class Card {
 		return rankNames[rank] + suitNames[suit];
 	}
 
+	/**
+	 * Append the String representation of this card to the given StringBuilder, without creating a String.
+	 * @param sb StringBuilder to append to
+	 * @return sb
+	 */
+	public StringBuilder appendTo(StringBuilder sb) {
+		return sb.append(rankNames[rank]).append(suitNames[suit]);
+	}
+
 	/**
 	 * Return whether or not this card equals another Card object.
 	 * @param other the other Card object being tested for equality.
@@ -0,0 +1,138 @@
+import java.util.HashMap;
+
+/**
+ * CellValueEngine - values the empty cells of a grid for placing a card by the joint expected contribution of the
+ * placement to its row and column, with undealt card statistics shared across all lines.
+ *
+ * Adding independent row and column potentials ignores that every line draws from the same undealt cards: a rank
+ * held by several open lines (pair draws in a row and in a column, say) completes only as many of them as there are
+ * cards of it left, and a suit wanted by several single-suit lines is divided between their flush draws.  So the
+ * engine counts the open lines holding each rank and the open single-suit lines of each suit, and a line's expected
+ * score (see LineOdds) is computed with the undealt cards of each rank it holds divided among the open lines holding
+ * that rank, and with its flush completions divided among the single-suit lines of its suit (an empty line competes
+ * with those of every suit).  The value of a cell is the gain in expected score of its row and column from placing
+ * the card there rather than leaving the cell to be filled later.
+ *
+ * prepare(grid) counts the competition and the current expected score of every line once per move; each cell then
+ * takes two line evaluations, memoized by line content, so that all empty cells can be ranked every move.
+ */
+public class CellValueEngine {
+
+	private static final int SIZE = PokerSquares.SIZE; // number of rows/columns in square grid
+
+	private final LineOdds odds; // undealt card statistics and point system
+	private final int[] rankHolders = new int[Card.NUM_RANKS]; // number of open lines holding each rank
+	private final int[] suitHolders = new int[Card.NUM_SUITS]; // number of open single-suit lines of each suit
+	private final double[] lineValues = new double[2 * SIZE]; // expected score of each row, then each column, before placement
+	private final double[] rankWeights = new double[Card.NUM_RANKS]; // reusable effective undealt rank counts
+	private final double[] suitShares = new double[Card.NUM_SUITS]; // reusable flush completion shares
+	private final Card[] line = new Card[SIZE]; // reusable line
+	private final HashMap<Long, Double> values = new HashMap<Long, Double>(); // memoized line values by card mask, for the prepared grid
+
+	/**
+	 * Create an engine over the given undealt card statistics, which the owner keeps up to date (and gives the point
+	 * system).
+	 * @param odds undealt card statistics, with the card to be placed already removed
+	 */
+	public CellValueEngine(LineOdds odds) {
+		this.odds = odds;
+	}
+
+	/**
+	 * Count the competition between the open lines of the given grid and their current expected scores.  Must be
+	 * called before getValue whenever the grid or the undealt cards have changed.
+	 * @param grid grid with Card objects or null (for empty positions)
+	 */
+	public void prepare(Card[][] grid) {
+		values.clear();
+		for (int r = 0; r < Card.NUM_RANKS; r++)
+			rankHolders[r] = 0;
+		for (int s = 0; s < Card.NUM_SUITS; s++)
+			suitHolders[s] = 0;
+		for (int i = 0; i < 2 * SIZE; i++) {
+			loadLine(grid, i, null, -1);
+			int ranks = 0, suits = 0, numCards = 0;
+			for (Card card : line)
+				if (card != null) {
+					numCards++;
+					ranks |= 1 << card.getRank();
+					suits |= 1 << card.getSuit();
+				}
+			if (numCards == SIZE) // a full line competes for nothing
+				continue;
+			for (int r = 0; r < Card.NUM_RANKS; r++)
+				if ((ranks & 1 << r) != 0)
+					rankHolders[r]++;
+			if (Integer.bitCount(suits) == 1)
+				suitHolders[Integer.numberOfTrailingZeros(suits)]++;
+		}
+		for (int i = 0; i < 2 * SIZE; i++) {
+			loadLine(grid, i, null, -1);
+			lineValues[i] = lineValue(null);
+		}
+	}
+
+	/**
+	 * Get the value of placing the card at the given empty cell: the gain in competition-adjusted expected score of
+	 * its row and column.
+	 * @param grid the prepared grid (the cell may already hold the card, or be empty)
+	 * @param card card to place
+	 * @param row row of the cell
+	 * @param col column of the cell
+	 * @return value of the placement
+	 */
+	public double getValue(Card[][] grid, Card card, int row, int col) {
+		loadLine(grid, row, card, col);
+		double rowGain = lineValue(card) - lineValues[row];
+		loadLine(grid, SIZE + col, card, row);
+		double colGain = lineValue(card) - lineValues[SIZE + col];
+		return rowGain + colGain;
+	}
+
+	/**
+	 * Copy line i (rows 0 to SIZE - 1, then columns) of the grid into line, with the given card at the given index
+	 * (if any).
+	 */
+	private void loadLine(Card[][] grid, int i, Card card, int index) {
+		for (int j = 0; j < SIZE; j++)
+			line[j] = i < SIZE ? grid[i][j] : grid[j][i - SIZE];
+		if (card != null)
+			line[index] = card;
+	}
+
+	/**
+	 * Get the competition-adjusted expected score of line.  The line counted in the prepared competition is line
+	 * without the given placed card (or line itself, if null).
+	 */
+	private double lineValue(Card placed) {
+		long key = 0;
+		int ranks = 0, suits = 0; // of the line as counted in the competition
+		for (Card card : line)
+			if (card != null) {
+				key |= 1L << card.getCardId();
+				if (card != placed) {
+					ranks |= 1 << card.getRank();
+					suits |= 1 << card.getSuit();
+				}
+			}
+		Double value = values.get(key);
+		if (value != null)
+			return value;
+		int lineRanks = ranks, lineSuits = suits; // of the line itself
+		if (placed != null) {
+			lineRanks |= 1 << placed.getRank();
+			lineSuits |= 1 << placed.getSuit();
+		}
+		for (int r = 0; r < Card.NUM_RANKS; r++) {
+			int holders = rankHolders[r] + ((lineRanks & ~ranks & 1 << r) != 0 ? 1 : 0); // counting this line
+			rankWeights[r] = (lineRanks & 1 << r) != 0 ? (double) odds.getUndealtCount(r) / holders : odds.getUndealtCount(r);
+		}
+		for (int s = 0; s < Card.NUM_SUITS; s++) {
+			boolean counted = suits == 1 << s; // this line already among the single-suit lines of s
+			suitShares[s] = 1.0 / (suitHolders[s] + (counted ? 0 : 1));
+		}
+		value = odds.getExpectedScore(line, rankWeights, suitShares);
+		values.put(key, value);
+		return value;
+	}
+}
@@ -0,0 +1,240 @@
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * CheckpointLog - a compact, append-only file of completed games, so that long batch evaluations (playSequence and
+ * playTournament) can resume after the JVM dies without replaying finished games.
+ *
+ * After an 8-byte header, the file is a sequence of records, one per completed game: the point system's full score
+ * table (one byte per hand, as hand scores are at most a byte), the player id (a 2-byte length and UTF-8 bytes), the
+ * game seed (long) and the game score (int).  Games are thus identified by the exact score table and a
+ * caller-supplied player id, which must be unique among the players logged to one file (e.g. distinguishing two
+ * players of the same name with different rollout policies).  A record is appended (and handed to the operating
+ * system) as soon as its game ends, and the file is forced to the storage device at most every sync interval.  When
+ * a log is opened, all complete records are read back, per-(point system, player) running statistics are rebuilt
+ * from them, and an incomplete record left by a crash mid-write is cut off.
+ */
+public class CheckpointLog implements AutoCloseable {
+
+	public static final long DEFAULT_SYNC_MILLIS = 10000L; // default maximum milliseconds between forced writes
+	private static final int MAGIC = 0x50534350; // "PSCP"
+	private static final int VERSION = 2; // file format version
+	private static final int HEADER_BYTES = 8; // bytes of file header
+	private static final int MAX_ID_BYTES = 0xffff; // maximum UTF-8 bytes of a player id
+
+	private final FileChannel channel; // log file, positioned at its end
+	private ByteBuffer record = ByteBuffer.allocate(256); // reusable record buffer, grown as needed
+	private final Map<String, Map<Long, Integer>> scores = new HashMap<String, Map<Long, Integer>>(); // score by seed, by (system, player) key
+	private final Map<String, RunningStatistics> statistics = new HashMap<String, RunningStatistics>(); // statistics by (system, player) key
+	private long syncMillis = DEFAULT_SYNC_MILLIS; // maximum milliseconds between forced writes
+	private long lastSyncTime = System.currentTimeMillis(); // time of the last forced write
+	private int numRecords = 0; // number of records in the log
+
+	/**
+	 * Open the checkpoint log in the given file, creating it if necessary and reading back its completed games.
+	 * @param file checkpoint file
+	 * @throws IOException if the file cannot be read or written, or is not a checkpoint log of this version
+	 */
+	public CheckpointLog(File file) throws IOException {
+		channel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+		try {
+			ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+			if (channel.size() < HEADER_BYTES) { // new (or torn before its header was complete)
+				channel.truncate(0);
+				header.putInt(MAGIC).putInt(VERSION).flip();
+				while (header.hasRemaining())
+					channel.write(header, header.position());
+				channel.force(true);
+			}
+			else {
+				channel.position(0);
+				DataInputStream in = new DataInputStream(new BufferedInputStream(Channels.newInputStream(channel), 1 << 16));
+				if (in.readInt() != MAGIC || in.readInt() != VERSION)
+					throw new IOException("Not a version " + VERSION + " checkpoint log: " + file);
+				long position = HEADER_BYTES; // end of the last complete record
+				int[] table = new int[PokerHand.NUM_HANDS];
+				try {
+					while (true) {
+						for (int i = 0; i < table.length; i++)
+							table[i] = in.readByte();
+						byte[] id = new byte[in.readUnsignedShort()];
+						in.readFully(id);
+						long seed = in.readLong();
+						int score = in.readInt();
+						add(key(table, new String(id, StandardCharsets.UTF_8)), seed, score);
+						position += table.length + 2 + id.length + 8 + 4;
+					}
+				} catch (EOFException e) { // end of the complete records
+				}
+				if (channel.size() > position) // incomplete final record
+					channel.truncate(position);
+			}
+			channel.position(channel.size());
+		} catch (IOException e) {
+			channel.close();
+			throw e;
+		}
+	}
+
+	/**
+	 * Index a completed game.
+	 */
+	private void add(String key, long seed, int score) {
+		Map<Long, Integer> seedScores = scores.get(key);
+		if (seedScores == null) {
+			seedScores = new HashMap<Long, Integer>();
+			scores.put(key, seedScores);
+			statistics.put(key, new RunningStatistics());
+		}
+		if (seedScores.put(seed, score) == null)
+			statistics.get(key).add(score);
+		numRecords++;
+	}
+
+	/**
+	 * Get the key of a point system's score table and a player id.
+	 */
+	private static String key(int[] table, String playerId) {
+		return Arrays.toString(table) + " " + playerId;
+	}
+
+	private static String key(PokerSquaresPointSystem system, String playerId) {
+		return key(system.getScoreTable(), playerId);
+	}
+
+	public void setSyncMillis(long syncMillis) {
+		this.syncMillis = syncMillis;
+	}
+
+	/**
+	 * Get the logged score of a game.
+	 * @param system point system
+	 * @param playerId unique player id
+	 * @param seed game seed
+	 * @return score of the game, or null if it has not been logged
+	 */
+	public synchronized Integer getScore(PokerSquaresPointSystem system, String playerId, long seed) {
+		Map<Long, Integer> seedScores = scores.get(key(system, playerId));
+		return seedScores == null ? null : seedScores.get(seed);
+	}
+
+	/**
+	 * Get the logged scores of a sequence of games with successive seeds, if all have been logged.
+	 * @param system point system
+	 * @param playerId unique player id
+	 * @param startSeed seed of the first game
+	 * @param numGames number of games
+	 * @return scores of the games, or null if any has not been logged
+	 */
+	public synchronized int[] getScores(PokerSquaresPointSystem system, String playerId, long startSeed, int numGames) {
+		Map<Long, Integer> seedScores = scores.get(key(system, playerId));
+		if (seedScores == null)
+			return null;
+		int[] result = new int[numGames];
+		for (int i = 0; i < numGames; i++) {
+			Integer score = seedScores.get(startSeed + i);
+			if (score == null)
+				return null;
+			result[i] = score;
+		}
+		return result;
+	}
+
+	/**
+	 * Log a completed game.  The record reaches the operating system at once, and is forced to the storage device if
+	 * the sync interval has passed.
+	 * @param system point system
+	 * @param playerId unique player id
+	 * @param seed game seed
+	 * @param score game score
+	 * @throws IllegalArgumentException if the player id is longer than 65535 UTF-8 bytes
+	 * @throws UncheckedIOException if the record cannot be written
+	 */
+	public synchronized void record(PokerSquaresPointSystem system, String playerId, long seed, int score) {
+		byte[] id = playerId.getBytes(StandardCharsets.UTF_8);
+		if (id.length > MAX_ID_BYTES)
+			throw new IllegalArgumentException("Player id too long: " + playerId);
+		int[] table = system.getScoreTable();
+		int bytes = table.length + 2 + id.length + 8 + 4;
+		if (record.capacity() < bytes)
+			record = ByteBuffer.allocate(bytes);
+		try {
+			record.clear();
+			for (int points : table)
+				record.put((byte) points);
+			record.putShort((short) id.length).put(id).putLong(seed).putInt(score).flip();
+			while (record.hasRemaining())
+				channel.write(record);
+			long now = System.currentTimeMillis();
+			if (now - lastSyncTime >= syncMillis) {
+				channel.force(false);
+				lastSyncTime = now;
+			}
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+		add(key(table, playerId), seed, score);
+	}
+
+	/**
+	 * Get running statistics of the logged scores of a player under a point system.
+	 * @param system point system
+	 * @param playerId unique player id
+	 * @return statistics of the logged scores (empty if there are none); not to be modified
+	 */
+	public synchronized RunningStatistics getStatistics(PokerSquaresPointSystem system, String playerId) {
+		RunningStatistics stats = statistics.get(key(system, playerId));
+		return stats == null ? new RunningStatistics() : stats;
+	}
+
+	/**
+	 * Get the number of records in the log, including any repeated games.
+	 * @return number of records
+	 */
+	public synchronized int size() {
+		return numRecords;
+	}
+
+	/**
+	 * Force all records to the storage device and close the log.
+	 * @throws IOException if the log cannot be written
+	 */
+	@Override
+	public synchronized void close() throws IOException {
+		if (channel.isOpen()) {
+			channel.force(false);
+			channel.close();
+		}
+	}
+
+	/**
+	 * Summarize a checkpoint file: the number, mean and standard deviation of logged scores for each point system
+	 * score table and player id.
+	 * @param args checkpoint file name
+	 * @throws IOException if the file cannot be read
+	 */
+	public static void main(String[] args) throws IOException {
+		if (args.length != 1) {
+			System.err.println("Usage: java CheckpointLog <checkpoint file>");
+			return;
+		}
+		try (CheckpointLog log = new CheckpointLog(new File(args[0]))) {
+			System.out.printf("%d records\n", log.size());
+			System.out.printf("%s\n", "Score table, player id: statistics");
+			for (Map.Entry<String, RunningStatistics> entry : log.statistics.entrySet())
+				System.out.printf("%s: %s\n", entry.getKey(), entry.getValue());
+		}
+	}
+}
@@ -7,7 +7,7 @@ import java.util.Stack;
  * PokerSquares that attempts to get flushes in the first four columns. Author:
  * ________, based on code provided by Todd W. Neller and Michael Fleming
  */
-public class FlushPlayer implements PokerSquaresPlayer {
+public class FlushPlayer implements SnapshotPlayer {
 
     private final int SIZE = 5; // number of rows/columns in square grid
     private final int NUM_POS = SIZE * SIZE; // number of positions in square grid
@@ -56,16 +56,73 @@ public class FlushPlayer implements PokerSquaresPlayer {
                 cardcol = grid[SIZE-1][0] == null ? 0 : (grid[SIZE-1][1] == null ? 1 : (grid[SIZE-1][2] == null ? 2 : 3)); 
         }
         
-        while (grid[cardrow][cardcol] != null && cardrow < SIZE){
+        while (cardrow < SIZE && grid[cardrow][cardcol] != null){
             cardrow++;
         }
         
+        if (cardrow == SIZE) { // the chosen column is full (after a snapshot not filled top-down)
+            return placeAnywhere(card);
+        }
+        
         grid[cardrow][cardcol] = card;
 
         int[] playPos = {cardrow, cardcol};
         return playPos;
     }
 
+    /* (non-Javadoc)
+	 * @see SnapshotPlayer#getPlay(Card[][], Card, long)
+     */
+    @Override
+    public int[] getPlay(Card[][] grid, Card card, long millisRemaining) {
+        for (int row = 0; row < SIZE; row++) {
+            System.arraycopy(grid[row], 0, this.grid[row], 0, SIZE);
+        }
+        // a snapshot need not have been filled top-down, so the incremental placement does not apply
+        return placeAnywhere(card);
+    }
+
+    /**
+     * Places the card in the first empty cell of its suit's column, else of
+     * column 4, else the first empty cell in row-major order, whatever order
+     * the grid was filled in.
+     *
+     * @param card card to place
+     * @return chosen play position
+     */
+    private int[] placeAnywhere(Card card) {
+        int[] playPos = null;
+        int row = firstEmptyRow(card.getSuit());
+        if (row >= 0) {
+            playPos = new int[]{row, card.getSuit()};
+        } else if ((row = firstEmptyRow(SIZE - 1)) >= 0) {
+            playPos = new int[]{row, SIZE - 1};
+        } else {
+            for (int pos = 0; pos < SIZE * SIZE && playPos == null; pos++) {
+                if (this.grid[pos / SIZE][pos % SIZE] == null) {
+                    playPos = new int[]{pos / SIZE, pos % SIZE};
+                }
+            }
+        }
+        this.grid[playPos[0]][playPos[1]] = card;
+        return playPos;
+    }
+
+    /**
+     * Returns the first empty row of the given column, or -1 if it is full.
+     *
+     * @param col column
+     * @return first empty row, or -1
+     */
+    private int firstEmptyRow(int col) {
+        for (int row = 0; row < SIZE; row++) {
+            if (grid[row][col] == null) {
+                return row;
+            }
+        }
+        return -1;
+    }
+
     /* (non-Javadoc)
 	 * @see PokerSquaresPlayer#getName()
      */
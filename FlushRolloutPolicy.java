@@ -0,0 +1,47 @@
+import java.util.Random;
+
+/**
+ * FlushRolloutPolicy - a rollout policy following FlushPlayer's placement: cards go to the column of their suit
+ * (columns 0 through 3), overflowing into column 4, and otherwise into a random empty position.
+ * It ignores the point system.
+ */
+public class FlushRolloutPolicy implements RolloutPolicy {
+
+	private static final int SIZE = PokerSquares.SIZE; // number of rows/columns in square grid
+
+	/* (non-Javadoc)
+	 * @see RolloutPolicy#setPointSystem(PokerSquaresPointSystem)
+	 */
+	@Override
+	public void setPointSystem(PokerSquaresPointSystem system) {
+	}
+
+	/* (non-Javadoc)
+	 * @see RolloutPolicy#choosePlay(Card, Card[][], int, Random)
+	 */
+	@Override
+	public int choosePlay(Card card, Card[][] grid, int legalPlays, Random random) {
+		int play = firstEmpty(grid, card.getSuit());
+		if (play < 0)
+			play = firstEmpty(grid, SIZE - 1);
+		return play >= 0 ? play : RolloutPolicy.randomPlay(legalPlays, random);
+	}
+
+	/**
+	 * Return the topmost empty position of the given column as a row-major index, or -1 if the column is full.
+	 */
+	private int firstEmpty(Card[][] grid, int col) {
+		for (int row = 0; row < SIZE; row++)
+			if (grid[row][col] == null)
+				return row * SIZE + col;
+		return -1;
+	}
+
+	/* (non-Javadoc)
+	 * @see RolloutPolicy#getName()
+	 */
+	@Override
+	public String getName() {
+		return "Flush";
+	}
+}
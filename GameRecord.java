@@ -0,0 +1,164 @@
+import java.util.Arrays;
+
+/**
+ * GameRecord - a recording of one Poker Squares game: the deal and player seeds, every card drawn with the position
+ * chosen for it, and the final score.  Records are written one per line (see toString() and parse(String)) so
+ * that a corpus of games can be stored and replayed later.
+ */
+public class GameRecord {
+
+	private static final int NUM_POS = PokerSquares.SIZE * PokerSquares.SIZE; // number of positions in square grid
+
+	private final long gameSeed; // seed of the game deal
+	private final long playerSeed; // seed of the player pseudorandom number generator
+	private final int[] cardIds = new int[NUM_POS]; // identification numbers of cards in the order drawn
+	private final int[] plays = new int[NUM_POS]; // chosen positions recorded as row-major indices
+	private int numPlays = 0; // number of plays recorded
+	private int score; // final game score
+
+	/**
+	 * Create an empty game record.
+	 * @param gameSeed seed of the game deal
+	 * @param playerSeed seed of the player pseudorandom number generator
+	 */
+	public GameRecord(long gameSeed, long playerSeed) {
+		this.gameSeed = gameSeed;
+		this.playerSeed = playerSeed;
+	}
+
+	/**
+	 * Forget all recorded plays.
+	 */
+	public void clear() {
+		numPlays = 0;
+		score = 0;
+	}
+
+	/**
+	 * Record the placement of the given card.
+	 * @param card card drawn
+	 * @param row row where the card was placed
+	 * @param col column where the card was placed
+	 */
+	public void addPlay(Card card, int row, int col) {
+		cardIds[numPlays] = card.getCardId();
+		plays[numPlays] = row * PokerSquares.SIZE + col;
+		numPlays++;
+	}
+
+	/**
+	 * Return the index of the first play at which this and the other record differ in card drawn or position chosen,
+	 * or -1 if the records agree on every play.
+	 * @param other other game record
+	 * @return index of the first diverging play, or -1 if there is none
+	 */
+	public int firstDivergence(GameRecord other) {
+		int n = Math.min(numPlays, other.numPlays);
+		for (int i = 0; i < n; i++)
+			if (cardIds[i] != other.cardIds[i] || plays[i] != other.plays[i])
+				return i;
+		return numPlays == other.numPlays ? -1 : n;
+	}
+
+	public long getGameSeed() {
+		return gameSeed;
+	}
+
+	public long getPlayerSeed() {
+		return playerSeed;
+	}
+
+	public int getNumPlays() {
+		return numPlays;
+	}
+
+	/**
+	 * Get the card drawn at the given play index.
+	 * @param i play index
+	 * @return card drawn at the given play index
+	 */
+	public Card getCard(int i) {
+		return Card.getCard(cardIds[i]);
+	}
+
+	/**
+	 * Get the position chosen at the given play index.
+	 * @param i play index
+	 * @return (row, col) position chosen at the given play index
+	 */
+	public int[] getPlay(int i) {
+		return new int[] {plays[i] / PokerSquares.SIZE, plays[i] % PokerSquares.SIZE};
+	}
+
+	public int getScore() {
+		return score;
+	}
+
+	public void setScore(int score) {
+		this.score = score;
+	}
+
+	/**
+	 * Parse a game record from its single line String representation.
+	 * @param line String produced by toString()
+	 * @return the parsed game record
+	 */
+	public static GameRecord parse(String line) {
+		String[] tokens = line.trim().split("\\s+");
+		GameRecord record = new GameRecord(Long.parseLong(tokens[0]), Long.parseLong(tokens[1]));
+		record.score = Integer.parseInt(tokens[2]);
+		for (int i = 3; i < tokens.length; i++) {
+			int at = tokens[i].indexOf('@');
+			Card card = Card.getCard(tokens[i].substring(0, at));
+			if (card == null)
+				throw new IllegalArgumentException("Unknown card in game record: " + tokens[i]);
+			int play = Integer.parseInt(tokens[i].substring(at + 1));
+			record.addPlay(card, play / PokerSquares.SIZE, play % PokerSquares.SIZE);
+		}
+		return record;
+	}
+
+	/* (non-Javadoc)
+	 * @see java.lang.Object#toString()
+	 */
+	public String toString() {
+		// "gameSeed playerSeed score card@position ..." with positions as row-major indices
+		StringBuilder sb = new StringBuilder();
+		sb.append(gameSeed).append(' ').append(playerSeed).append(' ').append(score);
+		for (int i = 0; i < numPlays; i++)
+			sb.append(' ').append(Card.getCard(cardIds[i])).append('@').append(plays[i]);
+		return sb.toString();
+	}
+
+	/**
+	 * Return whether or not the other object is a game record holding the same seeds, plays and score.  Records are
+	 * mutable, so equality (and the hash code) follows the plays recorded so far.
+	 * @param obj other object
+	 * @return whether or not the other object is a record holding the same seeds, plays and score
+	 */
+	@Override
+	public boolean equals(Object obj) {
+		if (this == obj)
+			return true;
+		if (!(obj instanceof GameRecord))
+			return false;
+		GameRecord other = (GameRecord) obj;
+		return gameSeed == other.gameSeed && playerSeed == other.playerSeed && score == other.score
+				&& numPlays == other.numPlays
+				&& Arrays.equals(cardIds, 0, numPlays, other.cardIds, 0, numPlays)
+				&& Arrays.equals(plays, 0, numPlays, other.plays, 0, numPlays);
+	}
+
+	/* (non-Javadoc)
+	 * @see java.lang.Object#hashCode()
+	 */
+	@Override
+	public int hashCode() {
+		int hash = Long.hashCode(gameSeed);
+		hash = 31 * hash + Long.hashCode(playerSeed);
+		hash = 31 * hash + score;
+		for (int i = 0; i < numPlays; i++)
+			hash = 31 * (31 * hash + cardIds[i]) + plays[i];
+		return hash;
+	}
+}
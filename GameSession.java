@@ -0,0 +1,165 @@
+import java.util.Arrays;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * GameSession - the state of one Poker Squares game hosted by a SessionManager: its own player instance, grid, dealt
+ * cards and remaining time budget, with the point system shared read-only among all sessions.
+ *
+ * Plays are serialized per session by a lock; a ReentrantLock rather than synchronized is used so that a virtual
+ * thread waiting on a busy session does not pin its carrier thread.  Only the time a player spends in getPlay
+ * (after acquiring a search permit) is charged to the session's budget, so a session is never timed out for
+ * waiting behind other sessions' searches.  As in PokerSquares, a timeout, player exception or illegal play ends the
+ * game with 10 times the minimum hand score.
+ */
+public class GameSession {
+
+	private static final int SIZE = PokerSquares.SIZE; // number of rows/columns in square grid
+
+	private final long id; // session identifier
+	private final PokerSquaresPlayer player; // this session's player
+	private final PokerSquaresPointSystem system; // shared point system
+	private final Card[][] grid = new Card[SIZE][SIZE]; // grid with Card objects or null (for empty positions)
+	private final boolean[] dealt = new boolean[Card.NUM_CARDS]; // whether each card has been dealt in this game
+	private final ReentrantLock lock = new ReentrantLock(); // serializes plays of this session
+	private final int minPoints; // score of a game lost to timeout, exception or illegal play
+	private volatile int numPlays = 0; // number of cards placed
+	private volatile long millisRemaining; // remaining time budget of the player
+	private volatile boolean failed = false; // whether the player timed out, threw or made an illegal play
+
+	/**
+	 * Create a session for a player whose point system has been set, or that failed to process it in time.
+	 * @param id session identifier
+	 * @param player player with point system set
+	 * @param system shared point system
+	 * @param gameMillis time budget of the player for the game
+	 * @param ready whether the player processed the point system in time; if not, the game is over at once, lost as
+	 * for a timeout, and the player (possibly still busy with the point system) is not initialized
+	 */
+	GameSession(long id, PokerSquaresPlayer player, PokerSquaresPointSystem system, long gameMillis, boolean ready) {
+		this.id = id;
+		this.player = player;
+		this.system = system;
+		this.millisRemaining = gameMillis;
+		int min = Integer.MAX_VALUE;
+		for (int points : system.getScoreTable())
+			min = Math.min(min, points);
+		minPoints = 10 * min;
+		if (ready)
+			player.init();
+		else
+			failed = true;
+	}
+
+	/**
+	 * Have the player place the given card, holding a search permit while it thinks.
+	 * @param card dealt card
+	 * @param searchPermits permits bounding concurrent searches
+	 * @return row and column of the play
+	 * @throws InterruptedException if interrupted while waiting for the session or a permit
+	 * @throws IllegalStateException if the game is over, or the player times out, throws or makes an illegal play
+	 * @throws IllegalArgumentException if the card has already been dealt in this game
+	 */
+	int[] play(Card card, Semaphore searchPermits) throws InterruptedException {
+		lock.lockInterruptibly();
+		try {
+			if (isOver())
+				throw new IllegalStateException("Session " + id + " is over");
+			if (dealt[card.getCardId()])
+				throw new IllegalArgumentException("Card " + card + " already dealt in session " + id);
+			int[] play;
+			searchPermits.acquire();
+			try {
+				long startTime = System.currentTimeMillis();
+				try {
+					play = player.getPlay(card, millisRemaining);
+				} catch (RuntimeException e) {
+					failed = true;
+					throw new IllegalStateException("Exception thrown by " + player.getName() + " in session " + id, e);
+				}
+				millisRemaining -= System.currentTimeMillis() - startTime;
+			}
+			finally {
+				searchPermits.release();
+			}
+			if (millisRemaining < 0) {
+				failed = true;
+				throw new IllegalStateException("Player out of time in session " + id);
+			}
+			if (play == null || play.length != 2 || play[0] < 0 || play[0] >= SIZE || play[1] < 0 || play[1] >= SIZE || grid[play[0]][play[1]] != null) {
+				failed = true;
+				throw new IllegalStateException("Illegal play in session " + id + ": " + Arrays.toString(play));
+			}
+			dealt[card.getCardId()] = true;
+			grid[play[0]][play[1]] = card;
+			numPlays++;
+			return play;
+		}
+		finally {
+			lock.unlock();
+		}
+	}
+
+	public long getId() {
+		return id;
+	}
+
+	public String getPlayerName() {
+		return player.getName();
+	}
+
+	public int getNumPlays() {
+		return numPlays;
+	}
+
+	public long getMillisRemaining() {
+		return millisRemaining;
+	}
+
+	/**
+	 * Return whether the player timed out, threw an exception or made an illegal play.
+	 * @return whether the player failed
+	 */
+	public boolean isFailed() {
+		return failed;
+	}
+
+	/**
+	 * Return whether the game is over, i.e. the grid is full or the player failed.
+	 * @return whether the game is over
+	 */
+	public boolean isOver() {
+		return failed || numPlays == SIZE * SIZE;
+	}
+
+	/**
+	 * Get the score of the grid so far, or 10 times the minimum hand score if the player failed.
+	 * @return current score
+	 */
+	public int getScore() {
+		lock.lock();
+		try {
+			return failed ? minPoints : system.getScore(grid);
+		}
+		finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Get a copy of the current grid.
+	 * @return grid with Card objects or null (for empty positions)
+	 */
+	public Card[][] getGrid() {
+		lock.lock();
+		try {
+			Card[][] copy = new Card[SIZE][];
+			for (int row = 0; row < SIZE; row++)
+				copy[row] = grid[row].clone();
+			return copy;
+		}
+		finally {
+			lock.unlock();
+		}
+	}
+}
@@ -1,5 +1,10 @@
 import java.util.ArrayList;
 import java.util.Random;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Supplier;
 
 /**
  * GreedyMCPlayer - a simple, greedy Monte Carlo implementation of the player interface for PokerSquares.
@@ -7,13 +12,14 @@ import java.util.Random;
  * (or game end).  Having sampled trajectories for all possible plays, the GreedyMCPlayer then selects the
  * play yielding the best average scoring potential in such Monte Carlo simulation.
  * 
- * Disclaimer: This example code is not intended as a model of efficiency. (E.g., patterns from Knuth's Dancing Links
- * algorithm (DLX) can provide faster legal move list iteration/deletion/restoration.)  Rather, this example
- * code illustrates how a player could be constructed.  Note how time is simply managed so as to not run out the play clock.
+ * Disclaimer: This example code is not intended as a model of efficiency.  (Legal play positions are, however, kept
+ * in a list patterned after Knuth's Dancing Links algorithm (DLX) for O(1) legal move deletion/restoration without
+ * copying; see LegalPlayList.)  Rather, this example code illustrates how a player could be constructed.
+ * Note how time is simply managed so as to not run out the play clock.
  * 
  * Author: Todd W. Neller
  */
-public class GreedyMCPlayer implements PokerSquaresPlayer {
+public class GreedyMCPlayer implements SeedablePlayer, SnapshotPlayer {
 	
 	private final int SIZE = 5; // number of rows/columns in square grid
 	private final int NUM_POS = SIZE * SIZE; // number of positions in square grid
@@ -21,16 +27,35 @@ public class GreedyMCPlayer implements PokerSquaresPlayer {
 	private Random random = new Random(); // pseudorandom number generator for Monte Carlo simulation 
 	private int[] plays = new int[NUM_POS]; // positions of plays so far (index 0 through numPlays - 1) recorded as integers using row-major indices.
 	// row-major indices: play (r, c) is recorded as a single integer r * SIZE + c (See http://en.wikipedia.org/wiki/Row-major_order)
-	// From plays index [numPlays] onward, we maintain a list of yet unplayed positions.
+	private LegalPlayList legalPlays = new LegalPlayList(); // dancing links list of yet unplayed positions
 	private int numPlays = 0; // number of Cards played into the grid so far
 	private PokerSquaresPointSystem system; // point system
+	private HandEvaluator evaluator; // scorer specialized to the point system
 	private int depthLimit = 2; // default depth limit for Greedy Monte Carlo (MC) play
 	private Card[][] grid = new Card[SIZE][SIZE]; // grid with Card objects or null (for empty positions)
-	private Card[] simDeck = Card.getAllCards(); // a list of all Cards. As we learn the index of cards in the play deck,
-	                                             // we swap each dealt card to its correct index.  Thus, from index numPlays 
-												 // onward, we maintain a list of undealt cards for MC simulation.
-	private int[][] legalPlayLists = new int[NUM_POS][NUM_POS]; // stores legal play lists indexed by numPlays (depth)
-	// (This avoids constant allocation/deallocation of such lists during the greedy selections of MC simulations.)
+	private SimDeck simDeck = new SimDeck(); // undealt cards for MC simulation. Dealt cards are removed as they are
+	                                         // played; simulated draws are taken back after each simulation.
+	private RolloutPolicy policy = new GreedyRolloutPolicy(); // placement policy for simulated play
+	private long simulationCount = 0; // number of MC simulations performed by this player
+	private int[] symmetryClasses = new int[NUM_POS]; // representative of each empty position's symmetry class
+	private AnytimeSearch anytimeSearch = null; // in anytime mode, spreads simulations round-robin over the plays
+	private int[] candidates = new int[NUM_POS]; // distinct plays for anytime search
+	private Card searchCard; // card being placed in the current anytime search
+	private boolean pondering = false; // whether to simulate possible next cards between getPlay calls
+	private Thread ponderThread = null; // background simulation between getPlay calls, or null
+	private volatile boolean ponderStop = false; // whether the ponder thread is to stop
+	private boolean ponderValid = false; // whether the ponder statistics describe the current grid
+	private long[][] ponderTotals = new long[NUM_CARDS][NUM_POS]; // pondered simulation score totals per next card and play
+	private int[][] ponderCounts = new int[NUM_CARDS][NUM_POS]; // pondered simulation counts per next card and play
+	private volatile long ponderSimulationCount = 0; // number of MC simulations performed while pondering (written only by the one ponder thread running)
+	private static final long PARALLEL_CHECK_MILLIS = 2; // milliseconds between early stopping checks of parallel rollouts
+	private static final int EARLY_STOP_MIN_SIMULATIONS = 100; // simulations of every play before parallel rollouts may stop early
+	private double earlyStopZ = 3; // standard errors by which the best play must lead every other to stop parallel rollouts early
+	private GreedyMCPlayer[] workers = new GreedyMCPlayer[0]; // warm players simulating in parallel from copies of this player's state
+	private ExecutorService workerPool = null; // threads of the parallel rollout workers, or null
+	private volatile boolean workersStop = false; // whether the parallel rollout workers are to stop
+	private boolean warmup = true; // whether setPointSystem warms up this class (see PlayerWarmup)
+	private int simulationsPerMove = 0; // fixed number of MC simulations per move, or 0 to simulate for the time per move
 
 	/**
 	 * Create a Greedy Monte Carlo player that simulates greedy play to depth 2.
@@ -46,20 +71,34 @@ public class GreedyMCPlayer implements PokerSquaresPlayer {
 		this.depthLimit = depthLimit;
 	}
 	
+	/**
+	 * Create a Monte Carlo player that simulates play with the given rollout policy to a given depth limit.
+	 * @param depthLimit depth limit for random simulated play
+	 * @param policy placement policy for simulated play
+	 */
+	public GreedyMCPlayer(int depthLimit, RolloutPolicy policy) {
+		this.depthLimit = depthLimit;
+		this.policy = policy;
+	}
+	
 	/* (non-Javadoc)
 	 * @see PokerSquaresPlayer#init()
 	 */
 	@Override
 	public void init() { 
+		// stop any pondering of the previous game
+		stopPondering();
+		ponderValid = false;
 		// clear grid
 		for (int row = 0; row < SIZE; row++)
 			for (int col = 0; col < SIZE; col++)
 				grid[row][col] = null;
+		// return all cards to the simulation deck
+		simDeck.reset();
 		// reset numPlays
 		numPlays = 0;
-		// (re)initialize list of play positions (row-major ordering)
-		for (int i = 0; i < NUM_POS; i++)
-			plays[i] = i;
+		// (re)initialize list of legal play positions (row-major ordering)
+		legalPlays.reset();
 	}
 
 	/* (non-Javadoc)
@@ -78,121 +117,343 @@ public class GreedyMCPlayer implements PokerSquaresPlayer {
 		 *     average score is chosen (breaking ties randomly).   
 		 */
 		
-		// match simDeck to actual play event; in this way, all indices forward from the card contain a list of 
-		//   undealt Cards in some permutation.
-		int cardIndex = numPlays;
-		while (!card.equals(simDeck[cardIndex]))
-			cardIndex++;
-		simDeck[cardIndex] = simDeck[numPlays];
-		simDeck[numPlays] = card;
+		long playStartTime = System.currentTimeMillis();
+		if (anytimeSearch != null) // a new search, until cancelled
+			anytimeSearch.prepare();
+		// take over the state from pondering, which simulated this card among all possible ones
+		stopPondering();
+		boolean pondered = ponderValid && simulationsPerMove == 0;
+		ponderValid = false;
+		// remove the dealt card from the simulation deck
+		simDeck.remove(card.getCardId());
 		
+		int bestPlay = legalPlays.first(); // the forced last play, unless there is a choice
 		if (numPlays < 24) { // not the forced last play
 			// compute average time per move evaluation
 			int remainingPlays = NUM_POS - numPlays; // ignores triviality of last play to keep a conservative margin for game completion
 			long millisPerPlay = millisRemaining / remainingPlays; // dividing time evenly with future getPlay() calls
-			long millisPerMoveEval = millisPerPlay / remainingPlays; // dividing time evenly across moves now considered
-			// copy the play positions (row-major indices) that are empty
-			System.arraycopy(plays, numPlays, legalPlayLists[numPlays], 0, remainingPlays);
-			double maxAverageScore = Double.NEGATIVE_INFINITY; // maximum average score found for moves so far
-			ArrayList<Integer> bestPlays = new ArrayList<Integer>(); // all plays yielding the maximum average score 
-			for (int i = 0; i < remainingPlays; i++) { // for each legal play position
-				int play = legalPlayLists[numPlays][i];
-				long startTime = System.currentTimeMillis();
-				long endTime = startTime + millisPerMoveEval; // compute when MC simulations should end
-				makePlay(card, play / SIZE, play % SIZE);  // play the card at the empty position
-				int simCount = 0;
-				int scoreTotal = 0;
-				while (System.currentTimeMillis() < endTime) { // perform as many MC simulations as possible through the allotted time
-					// Perform a Monte Carlo simulation of greedy play to the depth limit or game end, whichever comes first.
-					scoreTotal += simGreedyPlay(depthLimit);  // accumulate MC simulation scores
-					simCount++; // increment count of MC simulations
-				}
-				undoPlay(); // undo the play under evaluation
-				// update (if necessary) the maximum average score and the list of best plays
-				double averageScore = (double) scoreTotal / simCount;
-				if (averageScore >= maxAverageScore) {
-					if (averageScore > maxAverageScore)
-						bestPlays.clear();
-					bestPlays.add(play);
-					maxAverageScore = averageScore;
+			// equivalent plays (under row/column permutation and transposition) are evaluated once, by their class representative
+			int distinctPlays = GridSymmetry.classify(grid, symmetryClasses);
+			if (anytimeSearch != null && simulationsPerMove == 0) { // evaluate all distinct plays at once, returning the best so far at deadline or cancellation
+				int numCandidates = 0;
+				for (int play = legalPlays.first(); play != LegalPlayList.HEAD; play = legalPlays.next(play))
+					if (symmetryClasses[play] == play)
+						candidates[numCandidates++] = play;
+				searchCard = card;
+				bestPlay = anytimeSearch.search(candidates, numCandidates, System.currentTimeMillis() + millisPerPlay);
+			}
+			else if (workers.length > 0 && simulationsPerMove == 0) // evaluate all distinct plays at once on the worker threads
+				bestPlay = parallelSearch(card, System.currentTimeMillis() + millisPerPlay);
+			else {
+				long millisPerMoveEval = millisPerPlay / distinctPlays; // dividing time evenly across distinct moves now considered
+				int simsPerMoveEval = Math.max(simulationsPerMove / distinctPlays, 1); // or dividing a fixed budget evenly
+				double maxAverageScore = Double.NEGATIVE_INFINITY; // maximum average score found for moves so far
+				ArrayList<Integer> bestPlays = new ArrayList<Integer>(); // all plays yielding the maximum average score 
+				// for each legal play position (the evaluated play is unlinked and relinked, so iteration can continue from it)
+				for (int play = legalPlays.first(); play != LegalPlayList.HEAD; play = legalPlays.next(play)) {
+					if (symmetryClasses[play] != play) // equivalent to another play
+						continue;
+					long startTime = System.currentTimeMillis();
+					long endTime = startTime + millisPerMoveEval; // compute when MC simulations should end
+					makePlay(card, play / SIZE, play % SIZE);  // play the card at the empty position
+					int simCount = pondered ? ponderCounts[card.getCardId()][play] : 0; // continue from pondered simulations
+					long scoreTotal = pondered ? ponderTotals[card.getCardId()][play] : 0;
+					// perform as many MC simulations as possible through the allotted time (or the fixed budget), but at least one,
+					// so that every play has an average score even when the time per play is below clock resolution
+					while (simCount == 0 || (simulationsPerMove > 0 ? simCount < simsPerMoveEval : System.currentTimeMillis() < endTime)) {
+						// Perform a Monte Carlo simulation of greedy play to the depth limit or game end, whichever comes first.
+						scoreTotal += simGreedyPlay(depthLimit);  // accumulate MC simulation scores
+						simCount++; // increment count of MC simulations
+					}
+					undoPlay(); // undo the play under evaluation
+					simulationCount += simCount;
+					// update (if necessary) the maximum average score and the list of best plays
+					double averageScore = (double) scoreTotal / simCount;
+					if (averageScore >= maxAverageScore) {
+						if (averageScore > maxAverageScore)
+							bestPlays.clear();
+						bestPlays.add(play);
+						maxAverageScore = averageScore;
+					}
 				}
+				bestPlay = bestPlays.get(random.nextInt(bestPlays.size())); // choose a best play (breaking ties randomly)
 			}
-			int bestPlay = bestPlays.get(random.nextInt(bestPlays.size())); // choose a best play (breaking ties randomly)
-			// update our list of plays, recording the chosen play in its sequential position; all onward from numPlays are empty positions
-			int bestPlayIndex = numPlays;
-			while (plays[bestPlayIndex] != bestPlay)
-				bestPlayIndex++;
-			plays[bestPlayIndex] = plays[numPlays];
-			plays[numPlays] = bestPlay;
 		}
-		int[] playPos = {plays[numPlays] / SIZE, plays[numPlays] % SIZE}; // decode it into row and column
+		int[] playPos = {bestPlay / SIZE, bestPlay % SIZE}; // decode it into row and column
 		makePlay(card, playPos[0], playPos[1]); // make the chosen play (not undoing this time)
+		if (pondering && simulationsPerMove == 0 && numPlays < NUM_POS - 1) // the next play is a choice
+			startPondering(playStartTime + millisRemaining); // at the latest, the game is over when its clock runs out
 		return playPos; // return the chosen play
 	}
 
 	/**
-	 * From the chosen play, perform simulated Card draws and greedy placement (depthLimit) iterations forward 
+	 * Start simulating every possible next card at every distinct play on a background thread, until stopPondering()
+	 * or the given deadline, whichever is first.  The deadline bounds pondering after a game that ends without
+	 * another getPlay or init (a timeout, or a game abandoned by its caller).  The ponder thread uses this player's own
+	 * state (restoring it after each simulation), which is safe as getPlay and init stop it before touching that state.
+	 * @param deadline time (in milliseconds since the epoch) after which the ponder thread stops by itself
+	 */
+	private void startPondering(long deadline) {
+		for (int cardId = 0; cardId < NUM_CARDS; cardId++)
+			for (int pos = 0; pos < NUM_POS; pos++) {
+				ponderTotals[cardId][pos] = 0;
+				ponderCounts[cardId][pos] = 0;
+			}
+		GridSymmetry.classify(grid, symmetryClasses); // the next play's distinct plays, whatever the card
+		int numCandidates = 0;
+		for (int play = legalPlays.first(); play != LegalPlayList.HEAD; play = legalPlays.next(play))
+			if (symmetryClasses[play] == play)
+				candidates[numCandidates++] = play;
+		int[] nextCards = new int[simDeck.size()];
+		for (int i = 0; i < nextCards.length; i++)
+			nextCards[i] = simDeck.get(i);
+		final int NUM_CANDIDATES = numCandidates;
+		ponderValid = true;
+		ponderStop = false;
+		ponderThread = new Thread(() -> {
+			// rounds of one simulation per next card and distinct play, so that all are sampled about equally
+			while (!ponderStop && System.currentTimeMillis() < deadline)
+				for (int i = 0; i < nextCards.length && !ponderStop && System.currentTimeMillis() < deadline; i++)
+					for (int j = 0; j < NUM_CANDIDATES && !ponderStop; j++) {
+						int cardId = nextCards[i], play = candidates[j];
+						simDeck.drawCard(cardId);
+						makePlay(Card.getCard(cardId), play / SIZE, play % SIZE);
+						ponderTotals[cardId][play] += simGreedyPlay(depthLimit);
+						ponderCounts[cardId][play]++;
+						undoPlay();
+						simDeck.undo();
+						ponderSimulationCount++;
+					}
+		}, "GreedyMCPlayer-ponder");
+		ponderThread.setDaemon(true);
+		ponderThread.start();
+	}
+
+	/**
+	 * Stop the ponder thread, if any, and wait for it to restore this player's state.
+	 */
+	private void stopPondering() {
+		if (ponderThread == null)
+			return;
+		ponderStop = true;
+		boolean interrupted = false;
+		while (ponderThread.isAlive())
+			try {
+				ponderThread.join();
+			} catch (InterruptedException e) {
+				interrupted = true;
+			}
+		if (interrupted)
+			Thread.currentThread().interrupt();
+		ponderThread = null;
+	}
+
+	/**
+	 * Set whether to ponder: after each play, simulate every possible next card at every distinct play on a background
+	 * thread until the next getPlay, whose evaluation (in fixed time slice mode) then continues from the pondered
+	 * simulations of the card actually drawn.  Pondering stops on getPlay and init(), or by itself when the game's
+	 * remaining time (as given to the last getPlay) has passed.  Play is then no longer
+	 * reproducible from seeds, as it depends on the time between calls.
+	 * @param pondering whether to ponder
+	 */
+	public void setPondering(boolean pondering) {
+		this.pondering = pondering;
+		if (!pondering)
+			stopPondering();
+	}
+
+	/**
+	 * Get the number of MC simulations this player has performed while pondering.  May be read from any thread while
+	 * the ponder thread is running.
+	 * @return number of pondered MC simulations
+	 */
+	public long getPonderSimulationCount() {
+		return ponderSimulationCount;
+	}
+
+	/**
+	 * Evaluate all distinct plays of the card on the worker threads, each worker simulating them round-robin from its
+	 * own copy of this player's state and adding the scores to a shared striped accumulator, until the deadline or
+	 * until one play leads every other by earlyStopZ standard errors.  (Time saved by stopping early is left to later
+	 * plays.)
+	 * @param card card to place
+	 * @param endTime deadline in System.currentTimeMillis() time
+	 * @return play with the highest mean simulated score (breaking ties randomly)
+	 */
+	private int parallelSearch(Card card, long endTime) {
+		int numCandidates = 0;
+		for (int play = legalPlays.first(); play != LegalPlayList.HEAD; play = legalPlays.next(play))
+			if (symmetryClasses[play] == play)
+				candidates[numCandidates++] = play;
+		final int NUM_CANDIDATES = numCandidates;
+		StripedAccumulator stats = new StripedAccumulator(workers.length, numCandidates);
+		workersStop = false;
+		Future<?>[] futures = new Future<?>[workers.length];
+		for (int w = 0; w < workers.length; w++) {
+			final int STRIPE = w;
+			GreedyMCPlayer worker = workers[w];
+			worker.restore(grid);
+			worker.simDeck.remove(card.getCardId());
+			worker.setSeed(random.nextLong());
+			futures[w] = workerPool.submit(() -> {
+				// rounds of one simulation per play, starting at different plays; every play is simulated in the first round
+				for (long count = 0; count < NUM_CANDIDATES || !workersStop; count++) {
+					int i = (int) ((STRIPE + count) % NUM_CANDIDATES), play = candidates[i];
+					worker.makePlay(card, play / SIZE, play % SIZE);
+					stats.add(STRIPE, i, worker.simGreedyPlay(depthLimit));
+					worker.undoPlay();
+				}
+			});
+		}
+		boolean interrupted = false;
+		long now;
+		while ((now = System.currentTimeMillis()) < endTime && !isSeparated(stats, earlyStopZ))
+			try {
+				Thread.sleep(Math.min(PARALLEL_CHECK_MILLIS, endTime - now));
+			} catch (InterruptedException e) {
+				interrupted = true;
+			}
+		workersStop = true;
+		for (Future<?> future : futures)
+			while (true)
+				try {
+					future.get();
+					break;
+				} catch (InterruptedException e) {
+					interrupted = true;
+				} catch (ExecutionException e) {
+					throw new IllegalStateException("Rollout worker failed", e.getCause());
+				}
+		if (interrupted)
+			Thread.currentThread().interrupt();
+		simulationCount += stats.getTotalCount();
+		double maxAverageScore = Double.NEGATIVE_INFINITY; // maximum average score found for plays so far
+		ArrayList<Integer> bestPlays = new ArrayList<Integer>(); // all plays yielding the maximum average score
+		for (int i = 0; i < numCandidates; i++) {
+			double averageScore = stats.getMean(i);
+			if (averageScore >= maxAverageScore) {
+				if (averageScore > maxAverageScore)
+					bestPlays.clear();
+				bestPlays.add(candidates[i]);
+				maxAverageScore = averageScore;
+			}
+		}
+		return bestPlays.get(random.nextInt(bestPlays.size()));
+	}
+
+	/**
+	 * Check whether, in a snapshot of the parallel rollout scores, every play has enough simulations and the best
+	 * play's mean leads every other by z standard errors (of both).
+	 * @param stats scores of the distinct plays
+	 * @param z number of standard errors
+	 * @return whether the best play is clearly separated
+	 */
+	private static boolean isSeparated(StripedAccumulator stats, double z) {
+		int numCandidates = stats.getNumCandidates();
+		if (z == Double.POSITIVE_INFINITY)
+			return false;
+		if (numCandidates < 2)
+			return true;
+		double[] lower = new double[numCandidates], upper = new double[numCandidates];
+		int best = 0;
+		for (int i = 0; i < numCandidates; i++) {
+			if (stats.getCount(i) < EARLY_STOP_MIN_SIMULATIONS)
+				return false;
+			double mean = stats.getMean(i), halfWidth = z * stats.getStandardError(i);
+			lower[i] = mean - halfWidth;
+			upper[i] = mean + halfWidth;
+			if (mean > stats.getMean(best))
+				best = i;
+		}
+		for (int i = 0; i < numCandidates; i++)
+			if (i != best && upper[i] >= lower[best])
+				return false;
+		return true;
+	}
+
+	/**
+	 * Set the number of worker threads among which each getPlay (in fixed time slice mode) spreads its simulations,
+	 * or 0 to simulate on the calling thread, each play in its own time slice.  Each worker is a warm player of this
+	 * depth limit with its own rollout policy, and simulates from a copy of this player's state.  Play is then no
+	 * longer reproducible from seeds, as it depends on thread scheduling.
+	 * @param numThreads number of worker threads, or 0
+	 * @param policyFactory creates each worker's rollout policy (policies keep per-thread scratch state)
+	 */
+	public void setRolloutThreads(int numThreads, Supplier<? extends RolloutPolicy> policyFactory) {
+		if (workerPool != null)
+			workerPool.shutdown();
+		workerPool = null;
+		workers = new GreedyMCPlayer[numThreads];
+		for (int w = 0; w < numThreads; w++) {
+			workers[w] = new GreedyMCPlayer(depthLimit, policyFactory.get());
+			if (system != null)
+				workers[w].setPointSystem(system, 0);
+		}
+		if (numThreads > 0)
+			workerPool = Executors.newFixedThreadPool(numThreads, runnable -> {
+				Thread thread = new Thread(runnable, "GreedyMCPlayer-rollout");
+				thread.setDaemon(true);
+				return thread;
+			});
+	}
+
+	/**
+	 * Set the number of standard errors by which the best play must lead every other for parallel rollouts to stop
+	 * before the play's deadline (default 3), or infinity to always use the whole time slice.
+	 * @param z number of standard errors
+	 */
+	public void setEarlyStopZ(double z) {
+		earlyStopZ = z;
+	}
+
+	/**
+	 * Simulate play after placing the card under anytime search at the given position.
+	 * @param play row-major position of the candidate play
+	 * @return resulting grid score after MC simulation to the depth limit
+	 */
+	private double simulateCandidate(int play) {
+		makePlay(searchCard, play / SIZE, play % SIZE);
+		int score = simGreedyPlay(depthLimit);
+		undoPlay();
+		simulationCount++;
+		return score;
+	}
+
+	/**
+	 * From the chosen play, perform simulated Card draws and rollout policy placement (depthLimit) iterations forward 
 	 * and return the resulting grid score.
-	 * @param depthLimit - how many simulated greedy plays to perform
-	 * @return resulting grid score after greedy MC simulation to given depthLimit
+	 * @param depthLimit - how many simulated plays to perform
+	 * @return resulting grid score after MC simulation to given depthLimit
 	 */
 	private int simGreedyPlay(int depthLimit) {
 		if (depthLimit == 0) { // with zero depth limit, return current score
-			return system.getScore(grid);
+			return evaluator.getScore(grid);
 		}
-		else { // up to the non-zero depth limit or to game end, iteratively make the given number of greedy plays o
-			int score = Integer.MIN_VALUE;
-			int maxScore = Integer.MIN_VALUE;
+		else { // up to the non-zero depth limit or to game end, iteratively make the given number of policy plays
 			int depth = Math.min(depthLimit, NUM_POS - numPlays); // compute real depth limit, taking into account game end
 			for (int d = 0; d < depth; d++) {
 				// generate a random card draw
-				int c = random.nextInt(NUM_CARDS - numPlays) + numPlays;
-				Card card = simDeck[c];
-				// iterate through legal plays and choose the best greedy play (see similar approach in getPlay)
-				int remainingPlays = NUM_POS - numPlays;
-				System.arraycopy(plays, numPlays, legalPlayLists[numPlays], 0, remainingPlays);
-				maxScore = Integer.MIN_VALUE;
-				ArrayList<Integer> bestPlays = new ArrayList<Integer>();
-				for (int i = 0; i < remainingPlays; i++) {
-					int play = legalPlayLists[numPlays][i];
-					makePlay(card, play / SIZE, play % SIZE);
-					score = system.getScore(grid);
-					if (score >= maxScore) {
-						if (score > maxScore)
-							bestPlays.clear();
-						bestPlays.add(play);
-						maxScore = score;
-					}
-					undoPlay();
-				}
-				int bestPlay = bestPlays.get(random.nextInt(bestPlays.size()));
-				makePlay(card, bestPlay / SIZE, bestPlay % SIZE);
+				Card card = Card.getCard(simDeck.draw(random));
+				// let the rollout policy choose among the legal plays (greedy by default; see similar approach in getPlay)
+				int play = policy.choosePlay(card, grid, legalPlays.getMask(), random);
+				makePlay(card, play / SIZE, play % SIZE);
 			}
-			// At this point, the last maxScore value is the end value of this Monte Carlo situation.
-			// Undo MC plays.
+			int score = evaluator.getScore(grid); // the end value of this Monte Carlo simulation
+			// Undo MC plays and card draws.
 			for (int d = 0; d < depth; d++) {
 				undoPlay();
+				simDeck.undo();
 			}
-			return maxScore;
+			return score;
 		}
 	}
 	
 	public void makePlay(Card card, int row, int col) {
-		// match simDeck to event
-		int cardIndex = numPlays;
-		while (!card.equals(simDeck[cardIndex]))
-			cardIndex++;
-		simDeck[cardIndex] = simDeck[numPlays];
-		simDeck[numPlays] = card;
-		
-		// update plays to reflect chosen play in sequence
+		// record the play in sequence and remove it from the legal plays
 		grid[row][col] = card;
 		int play = row * SIZE + col;
-		int j = 0;
-		while (plays[j] != play)
-			j++;
-		plays[j] = plays[numPlays];
 		plays[numPlays] = play;
+		legalPlays.unlink(play);
 		
 		// increment the number of plays taken
 		numPlays++;
@@ -202,6 +463,67 @@ public class GreedyMCPlayer implements PokerSquaresPlayer {
 		numPlays--;
 		int play = plays[numPlays];
 		grid[play / SIZE][play % SIZE] = null;	
+		legalPlays.relink(play);
+	}
+
+	/* (non-Javadoc)
+	 * @see SnapshotPlayer#getPlay(Card[][], Card, long)
+	 */
+	@Override
+	public int[] getPlay(Card[][] grid, Card card, long millisRemaining) {
+		restore(grid);
+		return getPlay(card, millisRemaining);
+	}
+
+	/**
+	 * Reset this player to the given mid-game grid, as though its cards had been dealt and played in row-major order.
+	 * @param snapshot grid with Card objects or null (for empty positions)
+	 */
+	private void restore(Card[][] snapshot) {
+		init();
+		for (int row = 0; row < SIZE; row++)
+			for (int col = 0; col < SIZE; col++)
+				if (snapshot[row][col] != null) {
+					simDeck.remove(snapshot[row][col].getCardId());
+					makePlay(snapshot[row][col], row, col);
+				}
+	}
+
+	/**
+	 * Switch to (or, given null, from) anytime mode, in which each getPlay spreads its simulations round-robin over
+	 * all distinct plays, publishes the current best play to the given listener as simulations accumulate, and can
+	 * be cut short with cancelSearch() to return the best play so far.
+	 * @param enabled whether to use anytime mode
+	 * @param listener receives best play updates, or null for none
+	 */
+	public void setAnytimeMode(boolean enabled, SearchListener listener) {
+		anytimeSearch = enabled ? new AnytimeSearch(this::simulateCandidate, listener) : null;
+	}
+
+	/**
+	 * Get the anytime search (e.g. to read its current best play from another thread).
+	 * @return anytime search, or null if not in anytime mode
+	 */
+	public AnytimeSearch getAnytimeSearch() {
+		return anytimeSearch;
+	}
+
+	/**
+	 * In anytime mode, end the current getPlay search as soon as possible with the best play so far.  Safe to call
+	 * from any thread.
+	 */
+	public void cancelSearch() {
+		AnytimeSearch search = anytimeSearch;
+		if (search != null)
+			search.cancel();
+	}
+
+	/**
+	 * Get the number of MC simulations this player has performed (e.g. for measuring simulations per second).
+	 * @return number of MC simulations performed
+	 */
+	public long getSimulationCount() {
+		return simulationCount;
 	}
 
 	/* (non-Javadoc)
@@ -210,6 +532,42 @@ public class GreedyMCPlayer implements PokerSquaresPlayer {
 	@Override
 	public void setPointSystem(PokerSquaresPointSystem system, long millis) {
 		this.system = system;
+		evaluator = system.getEvaluator();
+		policy.setPointSystem(system);
+		for (GreedyMCPlayer worker : workers)
+			worker.setPointSystem(system, 0);
+		if (warmup)
+			PlayerWarmup.warmUp(() -> new GreedyMCPlayer(depthLimit, policy), system, millis);
+	}
+
+	/**
+	 * Set whether setPointSystem warms up this class, once per JVM, with a throwaway player (see PlayerWarmup), so that
+	 * the first plays of the first game do not run interpreted.
+	 * @param warmup whether to warm up
+	 */
+	public void setWarmup(boolean warmup) {
+		this.warmup = warmup;
+	}
+
+	/* (non-Javadoc)
+	 * @see SeedablePlayer#setSeed(long)
+	 */
+	@Override
+	public void setSeed(long seed) {
+		random.setSeed(seed);
+	}
+
+	/**
+	 * Set a fixed number of MC simulations per move, divided evenly among its distinct plays (at least one each), or 0
+	 * to simulate for the time per move.  With a fixed budget, plays are evaluated on this thread without pondering,
+	 * anytime search or parallel rollouts, so that seeded games are repeatable move for move.
+	 * @see SeedablePlayer#setSimulationsPerMove(int)
+	 */
+	@Override
+	public void setSimulationsPerMove(int simulations) {
+		simulationsPerMove = simulations;
+		if (simulations > 0)
+			stopPondering();
 	}
 
 	/* (non-Javadoc)
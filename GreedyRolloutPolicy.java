@@ -0,0 +1,54 @@
+import java.util.Random;
+
+/**
+ * GreedyRolloutPolicy - a rollout policy that places each card where it maximizes the score of the whole grid,
+ * breaking ties randomly.  This is the greedy simulation play of the original Monte Carlo players.  Since a play
+ * changes only its own row and column, plays are ranked by the change in those two hand scores, computed by a
+ * HandEvaluator specialized to the point system, which ranks them exactly as whole-grid scores would.
+ */
+public class GreedyRolloutPolicy implements RolloutPolicy {
+
+	private static final int SIZE = PokerSquares.SIZE; // number of rows/columns in square grid
+	private HandEvaluator evaluator; // scorer specialized to the point system
+	private int[] bestPlays = new int[SIZE * SIZE]; // reusable list of plays tied for the best score
+
+	/* (non-Javadoc)
+	 * @see RolloutPolicy#setPointSystem(PokerSquaresPointSystem)
+	 */
+	@Override
+	public void setPointSystem(PokerSquaresPointSystem system) {
+		evaluator = system.getEvaluator();
+	}
+
+	/* (non-Javadoc)
+	 * @see RolloutPolicy#choosePlay(Card, Card[][], int, Random)
+	 */
+	@Override
+	public int choosePlay(Card card, Card[][] grid, int legalPlays, Random random) {
+		int maxScore = Integer.MIN_VALUE;
+		int numBest = 0;
+		for (int plays = legalPlays; plays != 0; plays &= plays - 1) {
+			int play = Integer.numberOfTrailingZeros(plays);
+			int row = play / SIZE, col = play % SIZE;
+			int before = evaluator.getRowScore(grid, row) + evaluator.getColScore(grid, col);
+			grid[row][col] = card;
+			int score = evaluator.getRowScore(grid, row) + evaluator.getColScore(grid, col) - before;
+			grid[row][col] = null;
+			if (score >= maxScore) {
+				if (score > maxScore)
+					numBest = 0;
+				bestPlays[numBest++] = play;
+				maxScore = score;
+			}
+		}
+		return bestPlays[random.nextInt(numBest)];
+	}
+
+	/* (non-Javadoc)
+	 * @see RolloutPolicy#getName()
+	 */
+	@Override
+	public String getName() {
+		return "Greedy";
+	}
+}
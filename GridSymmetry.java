@@ -0,0 +1,69 @@
+import java.util.Arrays;
+
+/**
+ * GridSymmetry - groups the empty positions of a partially filled grid into classes of equivalent positions.
+ *
+ * Under any point system, permuting rows, permuting columns and transposing the grid leave the score unchanged.
+ * Two empty positions are equivalent if such a symmetry maps the current grid onto itself and one position onto
+ * the other; placing a card at either then leads to games of equal value, so only one of them needs evaluation.
+ *
+ * Since all cards are distinct, a symmetry of a grid must fix every card.  Row and column permutations therefore
+ * can only exchange empty rows among themselves and empty columns among themselves, so positions are equivalent
+ * when their rows are the same non-empty row or both empty, and likewise for their columns.  A transposition
+ * (combined with permutations) fixes every card exactly when no row or column holds more than one card; it maps
+ * the row of each card to that card's column, and then also identifies the position (r, c) with its mirror image.
+ */
+public class GridSymmetry {
+
+	private static final int SIZE = PokerSquares.SIZE; // number of rows/columns in square grid
+	private static final int EMPTY = SIZE; // line key of an empty row or column
+
+	/**
+	 * Classify the empty positions of the given grid.  For each row-major position p, classOf[p] is set to the
+	 * smallest position equivalent to p (so p represents its class exactly when classOf[p] == p), or to -1 if p
+	 * is occupied.
+	 * @param grid grid with Card objects or null (for empty positions)
+	 * @param classOf array of length at least SIZE * SIZE receiving the class representatives
+	 * @return the number of classes, i.e. the number of distinct candidate positions
+	 */
+	public static int classify(Card[][] grid, int[] classOf) {
+		int[] rowCount = new int[SIZE], colCount = new int[SIZE];
+		int[] rowToCol = new int[SIZE + 1], colToRow = new int[SIZE + 1]; // card-diagonal mappings (index EMPTY for empty lines)
+		for (int row = 0; row < SIZE; row++)
+			for (int col = 0; col < SIZE; col++)
+				if (grid[row][col] != null) {
+					rowCount[row]++;
+					colCount[col]++;
+					rowToCol[row] = col;
+					colToRow[col] = row;
+				}
+		boolean transposable = true; // whether every occupied row and column holds exactly one card
+		for (int i = 0; i < SIZE; i++)
+			if (rowCount[i] > 1 || colCount[i] > 1)
+				transposable = false;
+		rowToCol[EMPTY] = EMPTY;
+		colToRow[EMPTY] = EMPTY;
+
+		int[] representative = new int[(SIZE + 1) * (SIZE + 1)]; // smallest position for each canonical class key
+		Arrays.fill(representative, -1);
+		int numClasses = 0;
+		for (int pos = 0; pos < SIZE * SIZE; pos++) {
+			int row = pos / SIZE, col = pos % SIZE;
+			if (grid[row][col] != null) {
+				classOf[pos] = -1;
+				continue;
+			}
+			int rowKey = rowCount[row] > 0 ? row : EMPTY;
+			int colKey = colCount[col] > 0 ? col : EMPTY;
+			int key = rowKey * (SIZE + 1) + colKey;
+			if (transposable) // the transposed position has row key colToRow[colKey] and column key rowToCol[rowKey]
+				key = Math.min(key, colToRow[colKey] * (SIZE + 1) + rowToCol[rowKey]);
+			if (representative[key] < 0) {
+				representative[key] = pos;
+				numClasses++;
+			}
+			classOf[pos] = representative[key];
+		}
+		return numClasses;
+	}
+}
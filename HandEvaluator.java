@@ -0,0 +1,181 @@
+/**
+ * HandEvaluator - a fast, allocation-free scorer of Poker Squares hands and grids, specialized when built to the
+ * hand classes that matter to a given point system.  Each point system builds one and shares it (see
+ * PokerSquaresPointSystem#getEvaluator()).
+ *
+ * PokerSquaresPointSystem scores a hand by classifying it with PokerHand (allocating count arrays and testing every
+ * class) and then looking the class up in its score table.  A HandEvaluator instead reads the cards of a row or
+ * column in place, counts ranks with bit masks, and returns a score directly.  Tests that cannot change a score
+ * under its point system are skipped entirely:
+ * - straights, when a straight scores as a high card and straight and royal flushes score as flushes;
+ * - flushes, when a flush scores as a high card and straight and royal flushes score as straights;
+ * - royal flushes (as opposed to other straight flushes), when both score the same;
+ * - rank counting, when one pair, two pair, three and four of a kind and full house all score as a high card.
+ * Classes of equal score are thus collapsed, and the choices are fixed per evaluator, so the branches are perfectly
+ * predictable in the hot path.  Scores agree with PokerSquaresPointSystem for all complete and partial hands.
+ */
+public class HandEvaluator {
+
+	private static final int SIZE = PokerSquares.SIZE; // number of rows/columns in square grid
+	private static final int ROYAL_MASK = 1 | 1 << 9 | 1 << 10 | 1 << 11 | 1 << 12; // rank mask of A, T, J, Q, K
+	private static final int STRAIGHT_MASK = (1 << SIZE) - 1; // rank mask of a straight from its lowest rank
+
+	public final int highCard, onePair, twoPair, threeOfAKind, straight, flush, fullHouse, fourOfAKind, straightFlush,
+			royalFlush; // hand class scores
+	private final boolean straights; // whether straights are detected
+	private final boolean flushes; // whether flushes are detected
+	private final boolean royals; // whether royal flushes are distinguished from straight flushes
+	private final boolean rankPatterns; // whether ranks are counted for pairs, three and four of a kind
+
+	/**
+	 * Create an evaluator specialized to the given point system (normally obtained from it instead, with getEvaluator).
+	 * @param system point system
+	 */
+	public HandEvaluator(PokerSquaresPointSystem system) {
+		int[] s = system.getScoreTable();
+		highCard = s[PokerHand.HIGH_CARD.id];
+		onePair = s[PokerHand.ONE_PAIR.id];
+		twoPair = s[PokerHand.TWO_PAIR.id];
+		threeOfAKind = s[PokerHand.THREE_OF_A_KIND.id];
+		straight = s[PokerHand.STRAIGHT.id];
+		flush = s[PokerHand.FLUSH.id];
+		fullHouse = s[PokerHand.FULL_HOUSE.id];
+		fourOfAKind = s[PokerHand.FOUR_OF_A_KIND.id];
+		straightFlush = s[PokerHand.STRAIGHT_FLUSH.id];
+		royalFlush = s[PokerHand.ROYAL_FLUSH.id];
+		straights = !(straight == highCard && straightFlush == flush && royalFlush == flush);
+		flushes = !(flush == highCard && straightFlush == straight && royalFlush == straight);
+		royals = royalFlush != straightFlush;
+		rankPatterns = !(onePair == highCard && twoPair == highCard && threeOfAKind == highCard && fullHouse == highCard
+				&& fourOfAKind == highCard);
+	}
+
+	/**
+	 * Get the score of the line of SIZE positions starting at the given position and proceeding in the given
+	 * direction.
+	 */
+	private int lineScore(Card[][] grid, int row, int col, int dRow, int dCol) {
+		int numCards = 0;
+		int ranks = 0, ranks2 = 0, ranks3 = 0, ranks4 = 0; // masks of ranks occurring at least once, twice, thrice, four times
+		int suits = 0; // mask of suits occurring
+		for (int i = 0; i < SIZE; i++, row += dRow, col += dCol) {
+			Card card = grid[row][col];
+			if (card == null)
+				continue;
+			numCards++;
+			int rank = 1 << card.getRank();
+			if (rankPatterns) {
+				ranks4 |= ranks3 & rank;
+				ranks3 |= ranks2 & rank;
+				ranks2 |= ranks & rank;
+			}
+			ranks |= rank;
+			suits |= 1 << card.getSuit();
+		}
+		return score(numCards, ranks, ranks2, ranks3, ranks4, suits);
+	}
+
+	/**
+	 * Get the score of the hand with the given number of cards, rank count masks and suit mask, skipping the tests
+	 * this evaluator is specialized away from.
+	 */
+	private int score(int numCards, int ranks, int ranks2, int ranks3, int ranks4, int suits) {
+		boolean isFlush = false, isStraight = false;
+		if (numCards == SIZE) {
+			isFlush = flushes && (suits & (suits - 1)) == 0;
+			if (straights && Integer.bitCount(ranks) == SIZE) {
+				boolean isRoyal = ranks == ROYAL_MASK;
+				isStraight = isRoyal || ranks >>> Integer.numberOfTrailingZeros(ranks) == STRAIGHT_MASK;
+				if (isFlush && isStraight)
+					return royals && isRoyal ? royalFlush : straightFlush;
+			}
+		}
+		if (rankPatterns) {
+			if (ranks4 != 0)
+				return fourOfAKind;
+			int numPairs = Integer.bitCount(ranks2 & ~ranks3);
+			if (ranks3 != 0 && numPairs == 1)
+				return fullHouse;
+			if (isFlush)
+				return flush;
+			if (isStraight)
+				return straight;
+			if (ranks3 != 0)
+				return threeOfAKind;
+			if (numPairs == 2)
+				return twoPair;
+			if (numPairs == 1)
+				return onePair;
+			return highCard;
+		}
+		if (isFlush)
+			return flush;
+		if (isStraight)
+			return straight;
+		return highCard;
+	}
+
+	/**
+	 * Get the score of the given row.
+	 * @param grid grid with Card objects or null (for empty positions)
+	 * @param row row index
+	 * @return hand score of the row
+	 */
+	public int getRowScore(Card[][] grid, int row) {
+		return lineScore(grid, row, 0, 0, 1);
+	}
+
+	/**
+	 * Get the score of the given column.
+	 * @param grid grid with Card objects or null (for empty positions)
+	 * @param col column index
+	 * @return hand score of the column
+	 */
+	public int getColScore(Card[][] grid, int col) {
+		return lineScore(grid, 0, col, 1, 0);
+	}
+
+	/**
+	 * Get the score of the given grid, the sum of its row and column hand scores.
+	 * @param grid grid with Card objects or null (for empty positions)
+	 * @return score of the grid
+	 */
+	public int getScore(Card[][] grid) {
+		int score = 0;
+		for (int i = 0; i < SIZE; i++)
+			score += lineScore(grid, i, 0, 0, 1) + lineScore(grid, 0, i, 1, 0);
+		return score;
+	}
+
+	/**
+	 * Get the score of the given hand of SIZE cards (which may contain null values).
+	 * @param hand Card hand
+	 * @return score of the hand
+	 */
+	public int getHandScore(Card[] hand) {
+		int numCards = 0;
+		int ranks = 0, ranks2 = 0, ranks3 = 0, ranks4 = 0; // masks of ranks occurring at least once, twice, thrice, four times
+		int suits = 0; // mask of suits occurring
+		for (Card card : hand) {
+			if (card == null)
+				continue;
+			numCards++;
+			int rank = 1 << card.getRank();
+			if (rankPatterns) {
+				ranks4 |= ranks3 & rank;
+				ranks3 |= ranks2 & rank;
+				ranks2 |= ranks & rank;
+			}
+			ranks |= rank;
+			suits |= 1 << card.getSuit();
+		}
+		return score(numCards, ranks, ranks2, ranks3, ranks4, suits);
+	}
+
+	/* (non-Javadoc)
+	 * @see java.lang.Object#toString()
+	 */
+	public String toString() {
+		return String.format("HandEvaluator[straights: %b, flushes: %b, royals: %b, rank patterns: %b]", straights, flushes, royals, rankPatterns);
+	}
+}
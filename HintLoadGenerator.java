@@ -0,0 +1,117 @@
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * HintLoadGenerator - measures HintServer throughput and latency on one machine.
+ *
+ * A number of closed-loop clients each send random mid-game hint requests (random grids under a few point systems)
+ * over their own connection, waiting for each response before sending the next.  Client-observed latency and
+ * throughput are reported, along with the server's own statistics.
+ */
+public class HintLoadGenerator {
+
+	private static final int SIZE = PokerSquares.SIZE; // number of rows/columns in square grid
+	private static final int NUM_POS = SIZE * SIZE; // number of positions in square grid
+	private static final String[] SYSTEMS = {"british", "american",
+			TournamentWorker.formatScoreTable(PokerSquaresPointSystem.getAmeritishPointSystem(new Random(0)))}; // point systems requested (a random one by its scores)
+
+	/**
+	 * Generate a random hint request line: a random number of cards at random positions, a drawn card and a game
+	 * time remaining giving the player the given milliseconds for each remaining play.
+	 */
+	private static String randomRequest(Random random, long millisPerPlay) {
+		Card[] deck = Card.getAllCards();
+		int[] positions = new int[NUM_POS];
+		for (int i = 0; i < NUM_POS; i++)
+			positions[i] = i;
+		int numPlaced = random.nextInt(NUM_POS);
+		String[] grid = new String[NUM_POS];
+		Arrays.fill(grid, "--");
+		for (int i = 0; i <= numPlaced; i++) { // partial shuffles of deck and positions; card numPlaced is drawn
+			int c = i + random.nextInt(deck.length - i);
+			Card card = deck[c];
+			deck[c] = deck[i];
+			deck[i] = card;
+			int p = i + random.nextInt(NUM_POS - i);
+			int pos = positions[p];
+			positions[p] = positions[i];
+			positions[i] = pos;
+			if (i < numPlaced)
+				grid[pos] = card.toString();
+		}
+		return String.format("%s %s %s %d", SYSTEMS[random.nextInt(SYSTEMS.length)], String.join("", grid), deck[numPlaced],
+				millisPerPlay * (NUM_POS - numPlaced));
+	}
+
+	/**
+	 * Run closed-loop clients against a hint server and report throughput and latency.
+	 * @param args optional number of clients (default 16), seconds (default 10), milliseconds per play (default 50) and
+	 * server port (default: start an embedded server with one worker per available processor)
+	 * @throws Exception if the server cannot be started or reached
+	 */
+	public static void main(String[] args) throws Exception {
+		int numClients = args.length > 0 ? Integer.parseInt(args[0]) : 16;
+		long seconds = args.length > 1 ? Long.parseLong(args[1]) : 10L;
+		long millisPerPlay = args.length > 2 ? Long.parseLong(args[2]) : 50L;
+		HintServer server = null;
+		int port;
+		if (args.length > 3)
+			port = Integer.parseInt(args[3]);
+		else {
+			server = new HintServer(0, () -> new GreedyMCPlayer(2), Runtime.getRuntime().availableProcessors());
+			server.start();
+			port = server.getPort();
+		}
+
+		LatencyRecorder latency = new LatencyRecorder();
+		AtomicLong errors = new AtomicLong();
+		long endTime = System.currentTimeMillis() + seconds * 1000;
+		Thread[] clients = new Thread[numClients];
+		for (int i = 0; i < numClients; i++) {
+			final long seed = i;
+			clients[i] = new Thread(() -> {
+				Random random = new Random(seed);
+				try (Socket socket = new Socket(InetAddress.getLoopbackAddress(), port)) {
+					socket.setTcpNoDelay(true);
+					BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.US_ASCII));
+					Writer out = new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.US_ASCII);
+					while (System.currentTimeMillis() < endTime) {
+						String request = randomRequest(random, millisPerPlay);
+						long startTime = System.nanoTime();
+						out.write(request + "\n");
+						out.flush();
+						String response = in.readLine();
+						latency.record(System.nanoTime() - startTime);
+						if (response == null || response.startsWith("ERR"))
+							errors.incrementAndGet();
+					}
+				} catch (IOException e) {
+					e.printStackTrace();
+				}
+			});
+			clients[i].start();
+		}
+		long startTime = System.currentTimeMillis();
+		for (Thread client : clients)
+			client.join();
+		double elapsed = (System.currentTimeMillis() - startTime) / 1000.0;
+		System.out.printf("%d clients, %d ms per play: %.1f requests/sec, %d errors\n", numClients, millisPerPlay, latency.getCount() / elapsed, errors.get());
+		System.out.println("Client latency " + latency);
+		try (Socket socket = new Socket(InetAddress.getLoopbackAddress(), port)) {
+			socket.getOutputStream().write("STATS\n".getBytes(StandardCharsets.US_ASCII));
+			String stats = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.US_ASCII)).readLine();
+			System.out.println("Server stats (requests, mean batch size, p50 ms, p99 ms): " + stats);
+		}
+		if (server != null)
+			server.close();
+	}
+}
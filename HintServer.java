@@ -0,0 +1,473 @@
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * HintServer - a local request/response service recommending Poker Squares plays.
+ *
+ * Clients connect to the loopback interface and send newline-terminated requests of the form
+ *
+ *   system grid card millisRemaining
+ *
+ * where system is british, american or ten comma-separated hand scores (in PokerHand id order; randomly generated
+ * systems such as ameritish must be sent in this explicit form, so that clients know the table their hints are scored
+ * by), grid is the 25 positions in row-major order as two-character cards with "--" for empty (50 characters, no
+ * spaces), card is the drawn card (e.g. "TS") and millisRemaining is the game time remaining for the player.  Each
+ * request is answered, in order, by a line "row col" or "ERR message".  The request "STATS" is answered by a line
+ * "OK" followed by request count, mean batch size and p50/p99 latency in milliseconds.
+ *
+ * A single selector thread does all non-blocking socket I/O and parsing.  Parsed requests are queued by point system,
+ * and each worker thread takes a batch of requests sharing a point system and serves them with its own warm player
+ * for that system (setPointSystem having run once), which rebuilds its state from each request's grid (see
+ * SnapshotPlayer).  Latency is measured from request parsing to response queueing.
+ */
+public class HintServer implements AutoCloseable {
+
+	public static final int DEFAULT_PORT = 7531; // default loopback port
+	public static final int MAX_BATCH = 64; // maximum number of requests a worker takes at once
+	public static final int MAX_WARM_SYSTEMS = 16; // maximum number of warm players kept by each worker
+	public static final int MAX_CACHED_SYSTEMS = 256; // maximum number of parsed point systems kept for reuse
+	private static final int SIZE = PokerSquares.SIZE; // number of rows/columns in square grid
+	private static final int NUM_POS = SIZE * SIZE; // number of positions in square grid
+	private static final int MAX_LINE = 256; // maximum request line length
+
+	private final Supplier<? extends SnapshotPlayer> playerFactory; // creates warm players
+	private final ServerSocketChannel serverChannel; // listening channel
+	private final Selector selector; // selector for all channels
+	private final Thread selectorThread; // performs all socket I/O
+	private final Thread[] workers; // serve batches of requests
+	private final LinkedHashMap<PokerSquaresPointSystem, ArrayDeque<HintRequest>> pending = new LinkedHashMap<PokerSquaresPointSystem, ArrayDeque<HintRequest>>(); // queued requests by point system, in turn order (a system served in part goes to the back)
+	private final ConcurrentLinkedQueue<Connection> writable = new ConcurrentLinkedQueue<Connection>(); // connections with new responses
+	private final LinkedHashMap<PokerSquaresPointSystem, PokerSquaresPointSystem> systems = new LinkedHashMap<PokerSquaresPointSystem, PokerSquaresPointSystem>(MAX_CACHED_SYSTEMS, 0.75f, true) {
+		private static final long serialVersionUID = 1L;
+
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<PokerSquaresPointSystem, PokerSquaresPointSystem> eldest) {
+			return size() > MAX_CACHED_SYSTEMS;
+		}
+	}; // recently used point systems by score table, so that equal tables share one instance (and evaluator)
+	private final LatencyRecorder latency = new LatencyRecorder(); // request latencies
+	private final AtomicLong requestCount = new AtomicLong(); // number of requests served by workers
+	private final AtomicLong batchCount = new AtomicLong(); // number of batches served by workers
+	private volatile boolean running = true; // whether the server is running
+
+	/**
+	 * A parsed hint request.
+	 */
+	private static class HintRequest {
+		Connection connection; // requesting connection
+		long sequence; // request number on its connection
+		PokerSquaresPointSystem system; // point system
+		Card[][] grid = new Card[SIZE][SIZE]; // grid with Card objects or null (for empty positions)
+		Card card; // drawn card
+		long millisRemaining; // game time remaining for the player
+		long arrivalNanos; // time of parsing
+	}
+
+	/**
+	 * A client connection with its partial request line and in-order response queue.
+	 */
+	private static class Connection {
+		final SocketChannel channel; // client channel
+		final SelectionKey key; // selection key of the channel
+		final ByteBuffer in = ByteBuffer.allocate(4096); // bytes read
+		final StringBuilder line = new StringBuilder(); // partial request line
+		final TreeMap<Long, String> completed = new TreeMap<Long, String>(); // responses waiting for earlier ones
+		final ArrayDeque<ByteBuffer> out = new ArrayDeque<ByteBuffer>(); // responses ready to write, in order
+		long nextSequence = 0; // number of the next request read
+		long nextResponse = 0; // number of the next response to be written
+
+		Connection(SocketChannel channel, SelectionKey key) {
+			this.channel = channel;
+			this.key = key;
+		}
+
+		/**
+		 * Store the response to a request, moving responses that are now in order to the output queue.
+		 * @return whether there are responses to write
+		 */
+		synchronized boolean complete(long sequence, String response) {
+			completed.put(sequence, response);
+			String next;
+			while ((next = completed.remove(nextResponse)) != null) {
+				out.add(ByteBuffer.wrap((next + "\n").getBytes(StandardCharsets.US_ASCII)));
+				nextResponse++;
+			}
+			return !out.isEmpty();
+		}
+	}
+
+	/**
+	 * Create a hint server on the loopback interface.
+	 * @param port port, or 0 for an ephemeral port
+	 * @param playerFactory creates the players serving requests
+	 * @param numWorkers number of worker threads
+	 * @throws IOException if the port cannot be bound
+	 */
+	public HintServer(int port, Supplier<? extends SnapshotPlayer> playerFactory, int numWorkers) throws IOException {
+		this.playerFactory = playerFactory;
+		selector = Selector.open();
+		serverChannel = ServerSocketChannel.open();
+		serverChannel.bind(new InetSocketAddress(InetAddress.getLoopbackAddress(), port));
+		serverChannel.configureBlocking(false);
+		serverChannel.register(selector, SelectionKey.OP_ACCEPT);
+		selectorThread = new Thread(this::select, "hint-selector");
+		workers = new Thread[numWorkers];
+		for (int i = 0; i < numWorkers; i++)
+			workers[i] = new Thread(this::work, "hint-worker-" + i);
+	}
+
+	/**
+	 * Start serving requests.
+	 */
+	public void start() {
+		selectorThread.start();
+		for (Thread worker : workers)
+			worker.start();
+	}
+
+	/**
+	 * Get the bound port.
+	 * @return bound port
+	 */
+	public int getPort() {
+		return serverChannel.socket().getLocalPort();
+	}
+
+	/**
+	 * Perform all socket I/O until closed.
+	 */
+	private void select() {
+		try {
+			while (running) {
+				selector.select();
+				Connection connection;
+				while ((connection = writable.poll()) != null)
+					if (connection.key.isValid())
+						connection.key.interestOps(SelectionKey.OP_READ | SelectionKey.OP_WRITE);
+				Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+				while (keys.hasNext()) {
+					SelectionKey key = keys.next();
+					keys.remove();
+					try {
+						if (key.isValid() && key.isAcceptable())
+							accept();
+						if (key.isValid() && key.isReadable())
+							read((Connection) key.attachment());
+						if (key.isValid() && key.isWritable())
+							write((Connection) key.attachment());
+					} catch (IOException e) {
+						key.cancel();
+						key.channel().close();
+					}
+				}
+			}
+		} catch (IOException e) {
+			if (running)
+				e.printStackTrace();
+		}
+	}
+
+	private void accept() throws IOException {
+		SocketChannel channel = serverChannel.accept();
+		if (channel == null)
+			return;
+		channel.configureBlocking(false);
+		SelectionKey key = channel.register(selector, SelectionKey.OP_READ);
+		key.attach(new Connection(channel, key));
+	}
+
+	/**
+	 * Read available bytes from a connection and handle each complete request line.
+	 */
+	private void read(Connection connection) throws IOException {
+		int n = connection.channel.read(connection.in);
+		if (n < 0) { // end of stream; responses still being computed are dropped
+			connection.key.cancel();
+			connection.channel.close();
+			return;
+		}
+		connection.in.flip();
+		while (connection.in.hasRemaining()) {
+			char c = (char) connection.in.get();
+			if (c == '\n') {
+				handle(connection, connection.line.toString().trim());
+				connection.line.setLength(0);
+			}
+			else if (connection.line.length() < MAX_LINE)
+				connection.line.append(c);
+		}
+		connection.in.clear();
+	}
+
+	/**
+	 * Write queued responses to a connection, ceasing write interest once all are written.
+	 */
+	private void write(Connection connection) throws IOException {
+		synchronized (connection) {
+			while (!connection.out.isEmpty()) {
+				ByteBuffer buffer = connection.out.peek();
+				connection.channel.write(buffer);
+				if (buffer.hasRemaining())
+					return;
+				connection.out.poll();
+			}
+			connection.key.interestOps(SelectionKey.OP_READ);
+		}
+	}
+
+	/**
+	 * Queue a response and have the selector write it.
+	 */
+	private void respond(Connection connection, long sequence, String response) {
+		if (connection.complete(sequence, response)) {
+			writable.add(connection);
+			selector.wakeup();
+		}
+	}
+
+	/**
+	 * Handle a request line: answer STATS or malformed requests at once, and queue hint requests by point system.
+	 */
+	private void handle(Connection connection, String line) {
+		long sequence = connection.nextSequence++;
+		if (line.equals("STATS")) {
+			double[] p = latency.getPercentiles(50, 99);
+			respond(connection, sequence, String.format("OK %d %.2f %.3f %.3f", requestCount.get(), getMeanBatchSize(), p[0] / 1e6, p[1] / 1e6));
+			return;
+		}
+		HintRequest request;
+		try {
+			request = parse(line);
+		} catch (RuntimeException e) {
+			respond(connection, sequence, "ERR " + e.getMessage());
+			return;
+		}
+		request.connection = connection;
+		request.sequence = sequence;
+		synchronized (pending) {
+			ArrayDeque<HintRequest> queue = pending.get(request.system);
+			if (queue == null)
+				pending.put(request.system, queue = new ArrayDeque<HintRequest>());
+			queue.add(request);
+			pending.notify();
+		}
+	}
+
+	/**
+	 * Parse a hint request line.
+	 * @throws IllegalArgumentException if the request is malformed or describes an impossible position
+	 */
+	private HintRequest parse(String line) {
+		String[] tokens = line.split("\\s+");
+		if (tokens.length != 4)
+			throw new IllegalArgumentException("expected: system grid card millisRemaining");
+		HintRequest request = new HintRequest();
+		request.arrivalNanos = System.nanoTime();
+		PokerSquaresPointSystem system = parsePointSystem(tokens[0]);
+		synchronized (systems) {
+			request.system = systems.computeIfAbsent(system, s -> s);
+		}
+		if (tokens[1].length() != 2 * NUM_POS)
+			throw new IllegalArgumentException("grid must have " + 2 * NUM_POS + " characters");
+		boolean[] used = new boolean[Card.NUM_CARDS];
+		int numEmpty = 0;
+		for (int pos = 0; pos < NUM_POS; pos++) {
+			String cardString = tokens[1].substring(2 * pos, 2 * pos + 2);
+			if (cardString.equals("--")) {
+				numEmpty++;
+				continue;
+			}
+			Card card = parseCard(cardString);
+			if (used[card.getCardId()])
+				throw new IllegalArgumentException("duplicate card " + card);
+			used[card.getCardId()] = true;
+			request.grid[pos / SIZE][pos % SIZE] = card;
+		}
+		if (numEmpty == 0)
+			throw new IllegalArgumentException("grid is full");
+		request.card = parseCard(tokens[2]);
+		if (used[request.card.getCardId()])
+			throw new IllegalArgumentException("card " + request.card + " is already in the grid");
+		try {
+			request.millisRemaining = Long.parseLong(tokens[3]);
+		} catch (NumberFormatException e) {
+			throw new IllegalArgumentException("bad millisRemaining " + tokens[3]);
+		}
+		if (request.millisRemaining < 0)
+			throw new IllegalArgumentException("bad millisRemaining " + tokens[3]);
+		return request;
+	}
+
+	private static Card parseCard(String cardString) {
+		Card card = Card.getCard(cardString);
+		if (card == null)
+			throw new IllegalArgumentException("bad card " + cardString);
+		return card;
+	}
+
+	/**
+	 * Parse a fixed point system name or ten comma-separated hand scores.  Randomly generated systems are rejected by
+	 * name, as the server's draw would be a table the client never sees.
+	 */
+	private static PokerSquaresPointSystem parsePointSystem(String token) {
+		switch (token.toLowerCase()) {
+		case "british": return PokerSquaresPointSystem.getBritishPointSystem();
+		case "american": return PokerSquaresPointSystem.getAmericanPointSystem();
+		case "ameritish":
+		case "hypercorner":
+			throw new IllegalArgumentException("random point system " + token + " must be sent as ten hand scores");
+		}
+		String[] values = token.split(",");
+		if (values.length != PokerHand.NUM_HANDS)
+			throw new IllegalArgumentException("bad point system " + token);
+		int[] scores = new int[PokerHand.NUM_HANDS];
+		try {
+			for (int i = 0; i < scores.length; i++)
+				scores[i] = Integer.parseInt(values[i]);
+		} catch (NumberFormatException e) {
+			throw new IllegalArgumentException("bad point system " + token);
+		}
+		return new PokerSquaresPointSystem(scores);
+	}
+
+	/**
+	 * Take the queued requests (up to MAX_BATCH) of the point system whose turn it is, waiting if there are none.  A
+	 * system with requests left over goes to the back, so that busy systems take turns with all others.
+	 * @return batch of requests sharing a point system, or null if the server has closed
+	 */
+	private ArrayList<HintRequest> takeBatch() throws InterruptedException {
+		synchronized (pending) {
+			while (pending.isEmpty()) {
+				if (!running)
+					return null;
+				pending.wait();
+			}
+			Iterator<Map.Entry<PokerSquaresPointSystem, ArrayDeque<HintRequest>>> entries = pending.entrySet().iterator();
+			Map.Entry<PokerSquaresPointSystem, ArrayDeque<HintRequest>> entry = entries.next();
+			ArrayDeque<HintRequest> queue = entry.getValue();
+			ArrayList<HintRequest> batch = new ArrayList<HintRequest>();
+			while (!queue.isEmpty() && batch.size() < MAX_BATCH)
+				batch.add(queue.poll());
+			entries.remove();
+			if (!queue.isEmpty()) // requeued behind every other waiting system
+				pending.put(entry.getKey(), queue);
+			return batch;
+		}
+	}
+
+	/**
+	 * Serve batches of requests with warm players until closed.
+	 */
+	private void work() {
+		LinkedHashMap<PokerSquaresPointSystem, SnapshotPlayer> players = new LinkedHashMap<PokerSquaresPointSystem, SnapshotPlayer>(MAX_WARM_SYSTEMS, 0.75f, true) {
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<PokerSquaresPointSystem, SnapshotPlayer> eldest) {
+				return size() > MAX_WARM_SYSTEMS;
+			}
+		};
+		try {
+			ArrayList<HintRequest> batch;
+			while ((batch = takeBatch()) != null) {
+				SnapshotPlayer player = players.get(batch.get(0).system);
+				if (player == null) {
+					player = playerFactory.get();
+					player.setPointSystem(batch.get(0).system, 0);
+					players.put(batch.get(0).system, player);
+				}
+				for (HintRequest request : batch) {
+					String response;
+					try {
+						int[] play = player.getPlay(request.grid, request.card, request.millisRemaining);
+						response = play[0] + " " + play[1];
+					} catch (RuntimeException e) {
+						response = "ERR " + e;
+					}
+					latency.record(System.nanoTime() - request.arrivalNanos);
+					requestCount.incrementAndGet();
+					respond(request.connection, request.sequence, response);
+				}
+				batchCount.incrementAndGet();
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	/**
+	 * Get the latencies of served requests.
+	 * @return latency recorder
+	 */
+	public LatencyRecorder getLatency() {
+		return latency;
+	}
+
+	public long getRequestCount() {
+		return requestCount.get();
+	}
+
+	/**
+	 * Get the mean number of requests per batch served.
+	 * @return mean batch size, or 0 if no batch has been served
+	 */
+	public double getMeanBatchSize() {
+		long batches = batchCount.get();
+		return batches == 0 ? 0 : (double) requestCount.get() / batches;
+	}
+
+	/**
+	 * Stop serving, close all connections and wait for the server threads to finish.
+	 */
+	@Override
+	public void close() {
+		running = false;
+		synchronized (pending) {
+			pending.notifyAll();
+		}
+		selector.wakeup();
+		try {
+			selectorThread.join();
+			for (Thread worker : workers)
+				worker.join();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+		try {
+			for (SelectionKey key : selector.keys())
+				key.channel().close();
+			selector.close();
+		} catch (IOException e) {
+			e.printStackTrace();
+		}
+	}
+
+	/**
+	 * Run a hint server with depth 2 GreedyMCPlayers until killed.
+	 * @param args optional port (default 7531) and number of workers (default one per available processor)
+	 * @throws IOException if the port cannot be bound
+	 */
+	public static void main(String[] args) throws IOException {
+		int port = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_PORT;
+		int numWorkers = args.length > 1 ? Integer.parseInt(args[1]) : Runtime.getRuntime().availableProcessors();
+		HintServer server = new HintServer(port, () -> new GreedyMCPlayer(2), numWorkers);
+		server.start();
+		System.out.printf("Hint server on port %d with %d workers\n", server.getPort(), numWorkers);
+	}
+}
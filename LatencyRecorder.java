@@ -0,0 +1,83 @@
+import java.util.Arrays;
+
+/**
+ * LatencyRecorder - a thread-safe record of the most recent latency samples (in nanoseconds) for reporting
+ * percentiles such as the median (p50) and p99.
+ *
+ * Samples are kept in a fixed-size ring, so memory is bounded and percentiles describe the recent window only.
+ */
+public class LatencyRecorder {
+
+	public static final int DEFAULT_WINDOW = 1 << 16; // default number of most recent samples kept
+
+	private final long[] samples; // ring of the most recent samples
+	private long count = 0; // total number of samples recorded
+
+	/**
+	 * Create a recorder keeping the default number of most recent samples.
+	 */
+	public LatencyRecorder() {
+		this(DEFAULT_WINDOW);
+	}
+
+	/**
+	 * Create a recorder keeping the given number of most recent samples.
+	 * @param window number of most recent samples kept
+	 */
+	public LatencyRecorder(int window) {
+		samples = new long[window];
+	}
+
+	/**
+	 * Record a latency sample.
+	 * @param nanos latency in nanoseconds
+	 */
+	public synchronized void record(long nanos) {
+		samples[(int) (count++ % samples.length)] = nanos;
+	}
+
+	/**
+	 * Get the total number of samples recorded.
+	 * @return number of samples recorded
+	 */
+	public synchronized long getCount() {
+		return count;
+	}
+
+	/**
+	 * Get a percentile of the recent samples (nearest rank).
+	 * @param percentile percentile in [0, 100]
+	 * @return latency percentile in nanoseconds, or 0 if there are no samples
+	 */
+	public double getPercentile(double percentile) {
+		return getPercentiles(percentile)[0];
+	}
+
+	/**
+	 * Get percentiles of the recent samples (nearest rank), sorting the window once.
+	 * @param percentiles percentiles in [0, 100]
+	 * @return latency percentiles in nanoseconds, 0 if there are no samples
+	 */
+	public double[] getPercentiles(double... percentiles) {
+		long[] sorted;
+		synchronized (this) {
+			sorted = Arrays.copyOf(samples, (int) Math.min(count, samples.length));
+		}
+		Arrays.sort(sorted);
+		double[] values = new double[percentiles.length];
+		if (sorted.length > 0)
+			for (int i = 0; i < percentiles.length; i++) {
+				int rank = (int) Math.ceil(percentiles[i] / 100 * sorted.length);
+				values[i] = sorted[Math.max(0, Math.min(sorted.length - 1, rank - 1))];
+			}
+		return values;
+	}
+
+	/* (non-Javadoc)
+	 * @see java.lang.Object#toString()
+	 */
+	public String toString() {
+		double[] p = getPercentiles(50, 99);
+		return String.format("n: %d, p50: %.3f ms, p99: %.3f ms", getCount(), p[0] / 1e6, p[1] / 1e6);
+	}
+}
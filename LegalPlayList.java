@@ -0,0 +1,92 @@
+/**
+ * LegalPlayList - the legal (empty) play positions of a grid as a circular doubly-linked list in the style of
+ * Knuth's Dancing Links (DLX).  Positions are row-major indices 0 through 24; index 25 is the list head.
+ *
+ * unlink(int) removes a position in O(1) but leaves that position's own links intact, so relink(int) can put it
+ * back in O(1).  As long as unlinks and relinks are properly nested (last unlinked, first relinked), the list is
+ * restored exactly, and an iteration may continue from a position that was unlinked and relinked in the meantime.
+ * A bit mask of the listed positions is maintained alongside for rollout policies.
+ */
+public class LegalPlayList {
+
+	public static final int NUM_POS = PokerSquares.SIZE * PokerSquares.SIZE; // number of positions in square grid
+	public static final int HEAD = NUM_POS; // list head index, which ends iterations
+	private final int[] next = new int[NUM_POS + 1]; // next position of each position (or head)
+	private final int[] prev = new int[NUM_POS + 1]; // previous position of each position (or head)
+	private int size = 0; // number of listed positions
+	private int mask = 0; // bit p is set if and only if position p is listed
+
+	/**
+	 * Create a list of all positions in row-major order.
+	 */
+	public LegalPlayList() {
+		reset();
+	}
+
+	/**
+	 * List all positions in row-major order.
+	 */
+	public void reset() {
+		for (int i = 0; i <= NUM_POS; i++) {
+			next[i] = (i + 1) % (NUM_POS + 1);
+			prev[i] = (i + NUM_POS) % (NUM_POS + 1);
+		}
+		size = NUM_POS;
+		mask = (1 << NUM_POS) - 1;
+	}
+
+	/**
+	 * Get the first listed position, or HEAD if the list is empty.
+	 * @return first listed position or HEAD
+	 */
+	public int first() {
+		return next[HEAD];
+	}
+
+	/**
+	 * Get the position following the given one, or HEAD if it is the last.
+	 * @param pos listed position (or a position unlinked and since relinked)
+	 * @return following position or HEAD
+	 */
+	public int next(int pos) {
+		return next[pos];
+	}
+
+	/**
+	 * Remove a listed position.
+	 * @param pos listed position
+	 */
+	public void unlink(int pos) {
+		next[prev[pos]] = next[pos];
+		prev[next[pos]] = prev[pos];
+		size--;
+		mask &= ~(1 << pos);
+	}
+
+	/**
+	 * Put back the most recently unlinked position that has not been relinked.
+	 * @param pos position to relink
+	 */
+	public void relink(int pos) {
+		next[prev[pos]] = pos;
+		prev[next[pos]] = pos;
+		size++;
+		mask |= 1 << pos;
+	}
+
+	/**
+	 * Get the number of listed positions.
+	 * @return number of listed positions
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * Get the listed positions as a bit mask where bit p is set if and only if position p is listed.
+	 * @return bit mask of listed positions
+	 */
+	public int getMask() {
+		return mask;
+	}
+}
@@ -0,0 +1,114 @@
+import java.util.Random;
+
+/**
+ * LegalPlayListBenchmark - quantifies the dancing links legal play list used by GreedyMCPlayer.
+ *
+ * First, the legal play bookkeeping of a random rollout is measured in isolation, comparing the former array scheme
+ * (linear search for the play in makePlay and an array copy of the legal plays at every simulated step) with
+ * LegalPlayList's O(1) unlink/relink.  Second, GreedyMCPlayer simulations per second are reported for a few depth
+ * limits and rollout policies over whole games.
+ */
+public class LegalPlayListBenchmark {
+
+	private static final int NUM_POS = PokerSquares.SIZE * PokerSquares.SIZE; // number of positions in square grid
+	private static long checksum = 0; // sum of the rollout plays, reported so that the rollouts cannot be optimized away
+
+	/**
+	 * Perform random full rollouts with the former array bookkeeping for the given time; return rollouts per second.
+	 */
+	private static double arrayRollouts(long millis, Random random) {
+		int[] plays = new int[NUM_POS];
+		int[][] legalPlayLists = new int[NUM_POS][NUM_POS];
+		for (int i = 0; i < NUM_POS; i++)
+			plays[i] = i;
+		long rollouts = 0, sum = 0; // sum of the plays, for the checksum
+		long startTime = System.currentTimeMillis(), endTime = startTime + millis;
+		while (System.currentTimeMillis() < endTime) {
+			for (int numPlays = 0; numPlays < NUM_POS; numPlays++) {
+				int remainingPlays = NUM_POS - numPlays;
+				System.arraycopy(plays, numPlays, legalPlayLists[numPlays], 0, remainingPlays);
+				int play = legalPlayLists[numPlays][random.nextInt(remainingPlays)];
+				int j = 0; // makePlay: find the play and swap it into sequence
+				while (plays[j] != play)
+					j++;
+				plays[j] = plays[numPlays];
+				plays[numPlays] = play;
+				sum += play;
+			}
+			rollouts++; // undoPlay only decrements numPlays in the array scheme
+		}
+		checksum += sum;
+		return rollouts * 1000.0 / (System.currentTimeMillis() - startTime);
+	}
+
+	/**
+	 * Perform random full rollouts with dancing links bookkeeping for the given time; return rollouts per second.
+	 */
+	private static double linkedRollouts(long millis, Random random) {
+		LegalPlayList legalPlays = new LegalPlayList();
+		int[] plays = new int[NUM_POS];
+		long rollouts = 0, sum = 0; // sum of the plays, for the checksum
+		long startTime = System.currentTimeMillis(), endTime = startTime + millis;
+		while (System.currentTimeMillis() < endTime) {
+			for (int numPlays = 0; numPlays < NUM_POS; numPlays++) {
+				int play = RolloutPolicy.randomPlay(legalPlays.getMask(), random);
+				legalPlays.unlink(play);
+				plays[numPlays] = play;
+				sum += play;
+			}
+			for (int numPlays = NUM_POS - 1; numPlays >= 0; numPlays--)
+				legalPlays.relink(plays[numPlays]);
+			rollouts++;
+		}
+		checksum += sum;
+		return rollouts * 1000.0 / (System.currentTimeMillis() - startTime);
+	}
+
+	/**
+	 * Play one game with the given player and per-game time budget; return MC simulations per second.  Shared with
+	 * the other GreedyMCPlayer benchmarks.
+	 */
+	static double simulationsPerSecond(GreedyMCPlayer player, PokerSquaresPointSystem system, long gameMillis, long seed) {
+		player.setPointSystem(system, 0);
+		player.setSeed(seed);
+		player.init();
+		Card[] deck = Card.getAllCards();
+		Random random = new Random(seed);
+		long startCount = player.getSimulationCount();
+		long startTime = System.currentTimeMillis();
+		long millisRemaining = gameMillis;
+		for (int i = 0; i < NUM_POS; i++) {
+			int c = i + random.nextInt(deck.length - i);
+			Card card = deck[c];
+			deck[c] = deck[i];
+			deck[i] = card;
+			long moveStart = System.currentTimeMillis();
+			player.getPlay(card, millisRemaining);
+			millisRemaining -= System.currentTimeMillis() - moveStart;
+		}
+		return (player.getSimulationCount() - startCount) * 1000.0 / (System.currentTimeMillis() - startTime);
+	}
+
+	/**
+	 * Report legal play bookkeeping throughput and GreedyMCPlayer simulation rates.
+	 * @param args optional measurement milliseconds (default 3000)
+	 */
+	public static void main(String[] args) {
+		long millis = args.length > 0 ? Long.parseLong(args[0]) : 3000L;
+		arrayRollouts(millis / 3, new Random(0)); // warm up
+		linkedRollouts(millis / 3, new Random(0));
+		double array = arrayRollouts(millis, new Random(0));
+		double linked = linkedRollouts(millis, new Random(0));
+		System.out.printf("Random rollout bookkeeping: array copy %.0f/sec, dancing links %.0f/sec (%.2fx, checksum %d)\n", array,
+				linked, linked / array, checksum);
+
+		PokerSquaresPointSystem system = PokerSquaresPointSystem.getBritishPointSystem();
+		GreedyMCPlayer[] players = {new GreedyMCPlayer(2), new GreedyMCPlayer(NUM_POS),
+				new GreedyMCPlayer(NUM_POS, new PatternRolloutPolicy()), new GreedyMCPlayer(NUM_POS, new RandomRolloutPolicy())};
+		String[] names = {"depth 2, Greedy", "full depth, Greedy", "full depth, Pattern", "full depth, Random"};
+		for (int i = 0; i < players.length; i++) {
+			simulationsPerSecond(players[i], system, millis / 3, 0L); // warm up
+			System.out.printf("GreedyMCPlayer %-20s %10.0f simulations/sec\n", names[i], simulationsPerSecond(players[i], system, millis, 1L));
+		}
+	}
+}
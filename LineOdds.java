@@ -0,0 +1,259 @@
+import java.util.Arrays;
+
+/**
+ * LineOdds - exact probabilities of each final Poker hand of a partial row or column, and its expected score, given
+ * the undealt cards.
+ *
+ * The empty positions of a line are modeled as filled by a uniformly random subset of the undealt cards (as they
+ * are under random play).  Rather than enumerating card combinations (up to C(47, 4) = 178,365 for a line with one
+ * card), the odds are summed over rank multisets of the missing cards, of which there are at most 1,820 for four
+ * missing cards: the number of card combinations with a given rank multiset is a product of binomial coefficients of
+ * undealt rank counts, the rank pattern (pairs, three or four of a kind, full house) and straights follow from the
+ * ranks alone, and of the combinations of distinct ranks, exactly one per suit (with all those cards undealt) is a
+ * flush.  The rank multisets of each size are tabulated once, with their rank groups and rank masks.
+ *
+ * Undealt rank counts and suit rank masks are updated incrementally as cards are dealt.  Expected scores are not
+ * memoized here, as they depend on the weights the caller gives (see CellValueEngine, which memoizes its line values
+ * per move).
+ */
+public class LineOdds {
+
+	private static final int SIZE = PokerSquares.SIZE; // number of positions in a line
+	private static final int ROYAL_MASK = 1 | 1 << 9 | 1 << 10 | 1 << 11 | 1 << 12; // rank mask of A, T, J, Q, K
+	private static final int STRAIGHT_MASK = (1 << SIZE) - 1; // rank mask of a straight from its lowest rank
+	private static final int[][] CHOOSE = new int[Card.NUM_SUITS + 1][SIZE + 1]; // binomial coefficients C(n, k) for n <= 4, k <= 5
+
+	// rank multisets of each size k (nondecreasing rank sequences), as groups of equal ranks
+	private static final int[] NUM_MULTISETS = new int[SIZE + 1]; // number of multisets of each size
+	private static final int[][] GROUP_START = new int[SIZE + 1][]; // index of each multiset's first group (one extra entry ends the last)
+	private static final int[][] GROUP_RANK = new int[SIZE + 1][]; // rank of each group
+	private static final int[][] GROUP_COUNT = new int[SIZE + 1][]; // multiplicity of each group
+	private static final int[][] RANK_MASK = new int[SIZE + 1][]; // mask of the ranks of each multiset
+
+	static {
+		for (int n = 0; n <= Card.NUM_SUITS; n++) {
+			CHOOSE[n][0] = 1;
+			for (int k = 1; k <= n; k++)
+				CHOOSE[n][k] = CHOOSE[n - 1][k - 1] + (k <= n - 1 ? CHOOSE[n - 1][k] : 0);
+		}
+		for (int k = 0; k <= SIZE; k++) {
+			int[] ranks = new int[k];
+			// count the multisets, then fill the tables
+			int count = 0, groups = 0;
+			for (boolean more = true; more; more = nextMultiset(ranks)) {
+				count++;
+				groups += numGroups(ranks);
+			}
+			NUM_MULTISETS[k] = count;
+			GROUP_START[k] = new int[count + 1];
+			GROUP_RANK[k] = new int[groups];
+			GROUP_COUNT[k] = new int[groups];
+			RANK_MASK[k] = new int[count];
+			Arrays.fill(ranks, 0);
+			int m = 0, g = 0;
+			for (boolean more = true; more; more = nextMultiset(ranks), m++) {
+				GROUP_START[k][m] = g;
+				for (int i = 0; i < k; i++) {
+					if (i > 0 && ranks[i] == ranks[i - 1])
+						GROUP_COUNT[k][g - 1]++;
+					else {
+						GROUP_RANK[k][g] = ranks[i];
+						GROUP_COUNT[k][g] = 1;
+						g++;
+					}
+					RANK_MASK[k][m] |= 1 << ranks[i];
+				}
+			}
+			GROUP_START[k][count] = g;
+		}
+	}
+
+	/**
+	 * Advance a nondecreasing rank sequence to the next in lexicographic order.
+	 * @return false if the sequence was the last
+	 */
+	private static boolean nextMultiset(int[] ranks) {
+		int i = ranks.length - 1;
+		while (i >= 0 && ranks[i] == Card.NUM_RANKS - 1)
+			i--;
+		if (i < 0)
+			return false;
+		ranks[i]++;
+		for (int j = i + 1; j < ranks.length; j++)
+			ranks[j] = ranks[i];
+		return true;
+	}
+
+	private static int numGroups(int[] ranks) {
+		int groups = 0;
+		for (int i = 0; i < ranks.length; i++)
+			if (i == 0 || ranks[i] != ranks[i - 1])
+				groups++;
+		return groups;
+	}
+
+	private final int[] rankCounts = new int[Card.NUM_RANKS]; // number of undealt cards of each rank
+	private final int[] suitRanks = new int[Card.NUM_SUITS]; // mask of the undealt ranks of each suit
+	private int numUndealt; // number of undealt cards
+	private int[] scores = new int[PokerHand.NUM_HANDS]; // hand scores of the point system
+	private final int[] lineCounts = new int[Card.NUM_RANKS]; // reusable rank counts of the line
+	private final int[] histogram = new int[SIZE + 1]; // reusable numbers of ranks occurring 0..SIZE times in the line
+	private final double[] probabilities = new double[PokerHand.NUM_HANDS]; // reusable hand probabilities
+
+	/**
+	 * Create odds for a full deck.
+	 */
+	public LineOdds() {
+		reset();
+	}
+
+	/**
+	 * Return all cards to the deck.
+	 */
+	public void reset() {
+		for (int r = 0; r < Card.NUM_RANKS; r++)
+			rankCounts[r] = Card.NUM_SUITS;
+		for (int s = 0; s < Card.NUM_SUITS; s++)
+			suitRanks[s] = (1 << Card.NUM_RANKS) - 1;
+		numUndealt = Card.NUM_CARDS;
+	}
+
+	/**
+	 * Remove a dealt card from the deck.
+	 * @param card dealt card, which must be undealt
+	 */
+	public void remove(Card card) {
+		rankCounts[card.getRank()]--;
+		suitRanks[card.getSuit()] &= ~(1 << card.getRank());
+		numUndealt--;
+	}
+
+	/**
+	 * Set the point system whose hand scores expected scores are computed with.
+	 * @param system point system
+	 */
+	public void setPointSystem(PokerSquaresPointSystem system) {
+		scores = system.getScoreTable();
+	}
+
+	/**
+	 * Compute the probability of each final Poker hand of the given line when its empty positions are filled with
+	 * a uniformly random subset of the undealt cards, with the undealt cards of each rank counted with a (possibly
+	 * fractional) weight, e.g. the share left to this line by competing lines, and flush completions in each suit
+	 * counted with a share.  Binomial coefficients are generalized to real counts; without weights and shares, the
+	 * odds are exact.
+	 * @param line line of SIZE cards (null for empty positions), none of them undealt
+	 * @param rankWeights effective number of undealt cards of each rank, or null for the actual counts
+	 * @param suitShares weight of flush completions in each suit (1 for all of them), or null for all 1
+	 * @param probabilities receives the probability of each hand, indexed by PokerHand id
+	 */
+	public void getProbabilities(Card[] line, double[] rankWeights, double[] suitShares, double[] probabilities) {
+		Arrays.fill(probabilities, 0);
+		int numCards = 0, lineRanks = 0, lineSuits = 0;
+		Arrays.fill(histogram, 0);
+		for (Card card : line)
+			if (card != null) {
+				numCards++;
+				lineCounts[card.getRank()]++;
+				lineRanks |= 1 << card.getRank();
+				lineSuits |= 1 << card.getSuit();
+			}
+		for (int r = 0; r < Card.NUM_RANKS; r++)
+			histogram[lineCounts[r]]++;
+		int k = SIZE - numCards;
+		boolean flushPossible = Integer.bitCount(lineSuits) <= 1;
+		int[] groupStart = GROUP_START[k], groupRank = GROUP_RANK[k], groupCount = GROUP_COUNT[k], rankMask = RANK_MASK[k];
+		for (int m = 0; m < NUM_MULTISETS[k]; m++) {
+			double ways = 1;
+			for (int g = groupStart[m]; g < groupStart[m + 1] && ways != 0; g++)
+				ways *= rankWeights == null ? CHOOSE[rankCounts[groupRank[g]]][groupCount[g]] : choose(rankWeights[groupRank[g]], groupCount[g]);
+			if (ways == 0)
+				continue;
+			// numbers of pairs, three and four of a kind in the final hand
+			int h2 = histogram[2], h3 = histogram[3], h4 = histogram[4];
+			for (int g = groupStart[m]; g < groupStart[m + 1]; g++) {
+				int before = lineCounts[groupRank[g]], after = before + groupCount[g];
+				if (before == 2) h2--; else if (before == 3) h3--;
+				if (after == 2) h2++; else if (after == 3) h3++; else if (after >= 4) h4++;
+			}
+			int hand;
+			if (h4 > 0)
+				hand = PokerHand.FOUR_OF_A_KIND.id;
+			else if (h3 > 0)
+				hand = h2 > 0 ? PokerHand.FULL_HOUSE.id : PokerHand.THREE_OF_A_KIND.id;
+			else if (h2 > 0)
+				hand = h2 == 2 ? PokerHand.TWO_PAIR.id : PokerHand.ONE_PAIR.id;
+			else { // five distinct ranks
+				int ranks = lineRanks | rankMask[m];
+				boolean straight = ranks == ROYAL_MASK || ranks >>> Integer.numberOfTrailingZeros(ranks) == STRAIGHT_MASK;
+				hand = straight ? PokerHand.STRAIGHT.id : PokerHand.HIGH_CARD.id;
+				if (flushPossible) {
+					double flushWays = 0; // one combination per suit that has all the missing ranks undealt
+					for (int s = 0; s < Card.NUM_SUITS; s++)
+						if ((lineSuits == 0 || lineSuits == 1 << s) && (suitRanks[s] & rankMask[m]) == rankMask[m])
+							flushWays += suitShares == null ? 1 : suitShares[s];
+					flushWays = Math.min(flushWays, ways);
+					if (flushWays > 0) {
+						int flushHand = !straight ? PokerHand.FLUSH.id
+								: ranks == ROYAL_MASK ? PokerHand.ROYAL_FLUSH.id : PokerHand.STRAIGHT_FLUSH.id;
+						probabilities[flushHand] += flushWays;
+						ways -= flushWays;
+					}
+				}
+			}
+			probabilities[hand] += ways;
+		}
+		for (Card card : line)
+			if (card != null)
+				lineCounts[card.getRank()] = 0;
+		double total = 0;
+		for (double ways : probabilities)
+			total += ways;
+		if (total > 0) // (no way to fill the line at all only with zero weights)
+			for (int i = 0; i < probabilities.length; i++)
+				probabilities[i] /= total;
+	}
+
+	/**
+	 * Get the expected final score of the given line with weighted undealt ranks and flush shares (see
+	 * getProbabilities(Card[], double[], double[], double[])).
+	 * @param line line of SIZE cards (null for empty positions), none of them undealt
+	 * @param rankWeights effective number of undealt cards of each rank, or null for the actual counts
+	 * @param suitShares weight of flush completions in each suit, or null for all 1
+	 * @return expected hand score of the line under the point system
+	 */
+	public double getExpectedScore(Card[] line, double[] rankWeights, double[] suitShares) {
+		getProbabilities(line, rankWeights, suitShares, probabilities);
+		double sum = 0;
+		for (int i = 0; i < probabilities.length; i++)
+			sum += probabilities[i] * scores[i];
+		return sum;
+	}
+
+	/**
+	 * Generalized binomial coefficient of a nonnegative real n, with factors below zero taken as zero.
+	 */
+	private static double choose(double n, int k) {
+		double c = 1;
+		for (int i = 0; i < k; i++)
+			c *= Math.max(0, n - i) / (i + 1);
+		return c;
+	}
+
+	/**
+	 * Get the number of undealt cards of the given rank.
+	 * @param rank card rank
+	 * @return number of undealt cards of the rank
+	 */
+	public int getUndealtCount(int rank) {
+		return rankCounts[rank];
+	}
+
+	/**
+	 * Get the number of undealt cards.
+	 * @return number of undealt cards
+	 */
+	public int getNumUndealt() {
+		return numUndealt;
+	}
+}
@@ -0,0 +1,99 @@
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * LinePatternCache - a bounded least-recently-used cache of partial-line estimates keyed by canonical line pattern
+ * keys (see MyPlayer#linePatternKey).  Estimates depend on the point system, so the cache must be cleared whenever
+ * the point system changes.  Hit and miss counters are kept to help size the cache.
+ */
+public class LinePatternCache {
+
+	private final int capacity; // maximum number of cached estimates
+	private final LinkedHashMap<Long, Integer> entries; // cached estimates in access order
+	private long hits = 0; // number of successful lookups
+	private long misses = 0; // number of unsuccessful lookups
+
+	/**
+	 * Create an empty cache.
+	 * @param capacity maximum number of cached estimates
+	 */
+	public LinePatternCache(int capacity) {
+		this.capacity = capacity;
+		entries = new LinkedHashMap<Long, Integer>(capacity * 4 / 3 + 1, 0.75f, true) {
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<Long, Integer> eldest) {
+				return size() > LinePatternCache.this.capacity;
+			}
+		};
+	}
+
+	/**
+	 * Get the cached estimate for the given key.
+	 * @param key pattern key
+	 * @return cached estimate, or null if there is none
+	 */
+	public Integer get(long key) {
+		Integer estimate = entries.get(key);
+		if (estimate == null)
+			misses++;
+		else
+			hits++;
+		return estimate;
+	}
+
+	/**
+	 * Cache the estimate for the given key, evicting the least recently used estimate if the cache is full.
+	 * @param key pattern key
+	 * @param estimate estimate to cache
+	 */
+	public void put(long key, int estimate) {
+		entries.put(key, estimate);
+	}
+
+	/**
+	 * Remove all cached estimates. Counters are kept.
+	 */
+	public void clear() {
+		entries.clear();
+	}
+
+	/**
+	 * Reset the hit and miss counters.
+	 */
+	public void resetCounters() {
+		hits = 0;
+		misses = 0;
+	}
+
+	public int size() {
+		return entries.size();
+	}
+
+	public int getCapacity() {
+		return capacity;
+	}
+
+	public long getHits() {
+		return hits;
+	}
+
+	public long getMisses() {
+		return misses;
+	}
+
+	/**
+	 * Get the fraction of lookups that were hits.
+	 * @return hit rate, or 0 if there have been no lookups
+	 */
+	public double getHitRate() {
+		long lookups = hits + misses;
+		return lookups == 0 ? 0 : (double) hits / lookups;
+	}
+
+	/* (non-Javadoc)
+	 * @see java.lang.Object#toString()
+	 */
+	public String toString() {
+		return String.format("%d/%d entries, %d hits, %d misses (%.1f%% hit rate)", size(), capacity, hits, misses, 100 * getHitRate());
+	}
+}
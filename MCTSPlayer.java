@@ -0,0 +1,331 @@
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.util.Random;
+
+/**
+ * MCTSPlayer - a Monte Carlo tree search implementation of the player interface for PokerSquares.
+ *
+ * The search tree alternates decision nodes (a card is in hand; children are labeled by the position it is placed
+ * at) and chance nodes (a card has been placed; children are labeled by the next card drawn).  Each iteration
+ * descends from the root, selecting placements by UCB1 and sampling card draws from the undealt cards, expands one
+ * node, completes the game with the rollout policy and backs the final score up the path.  The most visited
+ * placement at the root is played.
+ *
+ * Nodes live off-heap in a NodeStore, so search creates no garbage and cannot provoke collection pauses near the
+ * play clock's end.  The store acts as a per-game arena: it is reset in init(), and the subtree under the actual
+ * play and draw is reused from move to move until the store is half full, at which point it is reset.
+ */
+public class MCTSPlayer implements SeedablePlayer, SnapshotPlayer {
+
+	private static final int SIZE = PokerSquares.SIZE; // number of rows/columns in square grid
+	private static final int NUM_POS = SIZE * SIZE; // number of positions in square grid
+	public static final int DEFAULT_CAPACITY = 1 << 20; // default node capacity (about 23 MB off-heap)
+	public static final double DEFAULT_EXPLORATION = 0.5; // default UCB1 exploration constant, relative to the observed score range
+
+	private Random random = new Random(); // pseudorandom number generator for sampling and rollouts
+	private PokerSquaresPointSystem system; // point system
+	private HandEvaluator evaluator; // scorer specialized to the point system
+	private RolloutPolicy policy; // placement policy for rollouts beyond the tree
+	private NodeStore store; // off-heap search tree
+	private double exploration; // UCB1 exploration constant
+	private Card[][] grid = new Card[SIZE][SIZE]; // grid with Card objects or null (for empty positions)
+	private PositionSet availablePositions = new PositionSet(); // empty positions
+	private SimDeck simDeck = new SimDeck(); // undealt cards; simulated draws are taken back after each iteration
+	private int[] placed = new int[NUM_POS]; // positions placed in the current iteration, in order
+	private int numPlaced = 0; // number of positions placed in the current iteration
+	private int[] path = new int[2 * NUM_POS + 1]; // tree nodes visited in the current iteration
+	private int lastPlayNode = NodeStore.NONE; // chance node of the last actual play, for subtree reuse
+	private double minScore, maxScore; // range of rollout scores observed for the current play
+	private long iterationCount = 0; // number of search iterations performed by this player
+	private int simulationsPerMove = 0; // fixed number of search iterations per move, or 0 to search for the time per move
+
+	/**
+	 * Create a Monte Carlo tree search player with greedy rollouts and the default node capacity.
+	 */
+	public MCTSPlayer() {
+		this(new GreedyRolloutPolicy(), DEFAULT_CAPACITY, DEFAULT_EXPLORATION);
+	}
+
+	/**
+	 * Create a Monte Carlo tree search player.
+	 * @param policy placement policy for rollouts beyond the tree
+	 * @param capacity maximum number of tree nodes
+	 * @param exploration UCB1 exploration constant, relative to the observed score range
+	 */
+	public MCTSPlayer(RolloutPolicy policy, int capacity, double exploration) {
+		this.policy = policy;
+		this.store = new NodeStore(capacity);
+		this.exploration = exploration;
+	}
+
+	/* (non-Javadoc)
+	 * @see PokerSquaresPlayer#setPointSystem(PokerSquaresPointSystem, long)
+	 */
+	@Override
+	public void setPointSystem(PokerSquaresPointSystem system, long millis) {
+		this.system = system;
+		evaluator = system.getEvaluator();
+		policy.setPointSystem(system);
+	}
+
+	/* (non-Javadoc)
+	 * @see PokerSquaresPlayer#init()
+	 */
+	@Override
+	public void init() {
+		for (int row = 0; row < SIZE; row++)
+			for (int col = 0; col < SIZE; col++)
+				grid[row][col] = null;
+		availablePositions.fill();
+		simDeck.reset();
+		store.reset(); // discard the previous game's tree at once
+		lastPlayNode = NodeStore.NONE;
+	}
+
+	/* (non-Javadoc)
+	 * @see PokerSquaresPlayer#getPlay(Card, long)
+	 */
+	@Override
+	public int[] getPlay(Card card, long millisRemaining) {
+		simDeck.remove(card.getCardId());
+		int bestPlay;
+		if (availablePositions.size() == 1) // the forced last play
+			bestPlay = availablePositions.get(0);
+		else {
+			long millisPerPlay = millisRemaining / availablePositions.size(); // dividing time evenly with future getPlay() calls
+			long endTime = System.currentTimeMillis() + millisPerPlay;
+			int root = getRoot(card);
+			minScore = Double.POSITIVE_INFINITY;
+			maxScore = Double.NEGATIVE_INFINITY;
+			for (int i = 0; simulationsPerMove > 0 ? i < simulationsPerMove : System.currentTimeMillis() < endTime; i++) {
+				iterate(root, card);
+				iterationCount++;
+			}
+			// play the most visited placement (breaking ties by mean score)
+			int bestChild = NodeStore.NONE;
+			for (int child = store.getFirstChild(root); child != NodeStore.NONE; child = store.getNextSibling(child))
+				if (bestChild == NodeStore.NONE || store.getVisits(child) > store.getVisits(bestChild)
+						|| store.getVisits(child) == store.getVisits(bestChild) && store.getMeanScore(child) > store.getMeanScore(bestChild))
+					bestChild = child;
+			if (bestChild == NodeStore.NONE) // no time to search
+				bestPlay = policy.choosePlay(card, grid, availablePositions.getMask(), random);
+			else
+				bestPlay = store.getLabel(bestChild);
+			lastPlayNode = bestChild;
+		}
+		grid[bestPlay / SIZE][bestPlay % SIZE] = card;
+		availablePositions.remove(bestPlay);
+		return new int[] {bestPlay / SIZE, bestPlay % SIZE};
+	}
+
+	/* (non-Javadoc)
+	 * @see SnapshotPlayer#getPlay(Card[][], Card, long)
+	 */
+	@Override
+	public int[] getPlay(Card[][] grid, Card card, long millisRemaining) {
+		init(); // the tree of another position is of no use
+		for (int pos = 0; pos < NUM_POS; pos++) {
+			Card placedCard = grid[pos / SIZE][pos % SIZE];
+			if (placedCard != null) {
+				this.grid[pos / SIZE][pos % SIZE] = placedCard;
+				availablePositions.remove(pos);
+				simDeck.remove(placedCard.getCardId());
+			}
+		}
+		return getPlay(card, millisRemaining);
+	}
+
+	/**
+	 * Get the decision node for the given dealt card, reusing the subtree of the previous play if the store is less
+	 * than half full, and otherwise resetting the store.
+	 */
+	private int getRoot(Card card) {
+		if (lastPlayNode != NodeStore.NONE && store.size() < store.getCapacity() / 2) {
+			int root = store.findChild(lastPlayNode, card.getCardId());
+			if (root != NodeStore.NONE)
+				return root;
+			root = store.allocate(NodeStore.DECISION, card.getCardId());
+			if (root != NodeStore.NONE) {
+				store.addChild(lastPlayNode, root);
+				return root;
+			}
+		}
+		store.reset();
+		return store.allocate(NodeStore.DECISION, card.getCardId());
+	}
+
+	/**
+	 * Perform one search iteration from the given root decision node: select and expand, roll out to game end, back
+	 * the score up the visited path and undo all simulated plays and draws.
+	 */
+	private void iterate(int root, Card rootCard) {
+		int mark = availablePositions.mark();
+		int pathLength = 0;
+		int node = root;
+		Card card = rootCard; // card to be placed at the current decision node
+		double score;
+		while (true) {
+			path[pathLength++] = node;
+			// placements not yet in the tree
+			int untried = availablePositions.getMask();
+			for (int child = store.getFirstChild(node); child != NodeStore.NONE; child = store.getNextSibling(child))
+				untried &= ~(1 << store.getLabel(child));
+			int play, child;
+			boolean expanded = untried != 0;
+			if (expanded) {
+				play = RolloutPolicy.randomPlay(untried, random);
+				child = store.allocate(NodeStore.CHANCE, play);
+				if (child != NodeStore.NONE)
+					store.addChild(node, child);
+			}
+			else {
+				child = selectChild(node);
+				play = store.getLabel(child);
+			}
+			place(card, play);
+			if (child == NodeStore.NONE) { // store full
+				score = rollout(null);
+				break;
+			}
+			path[pathLength++] = child;
+			if (availablePositions.size() == 0) { // game end
+				score = evaluator.getScore(grid);
+				break;
+			}
+			if (expanded) {
+				score = rollout(null);
+				break;
+			}
+			// sample the next card draw
+			card = Card.getCard(simDeck.draw(random));
+			node = store.findChild(child, card.getCardId());
+			if (node == NodeStore.NONE) {
+				node = store.allocate(NodeStore.DECISION, card.getCardId());
+				if (node != NodeStore.NONE) {
+					store.addChild(child, node);
+					path[pathLength++] = node;
+				}
+				score = rollout(card);
+				break;
+			}
+		}
+		if (score < minScore)
+			minScore = score;
+		if (score > maxScore)
+			maxScore = score;
+		for (int i = 0; i < pathLength; i++)
+			store.update(path[i], score);
+		// undo simulated plays and draws
+		while (numPlaced > 0) {
+			int pos = placed[--numPlaced];
+			grid[pos / SIZE][pos % SIZE] = null;
+		}
+		availablePositions.restoreTo(mark);
+		simDeck.undoAll();
+	}
+
+	/**
+	 * Select the child of a fully expanded decision node maximizing UCB1.
+	 */
+	private int selectChild(int node) {
+		double range = maxScore > minScore ? maxScore - minScore : 1;
+		double logVisits = Math.log(store.getVisits(node));
+		int bestChild = NodeStore.NONE;
+		double bestValue = Double.NEGATIVE_INFINITY;
+		for (int child = store.getFirstChild(node); child != NodeStore.NONE; child = store.getNextSibling(child)) {
+			int visits = store.getVisits(child);
+			double value = store.getScoreSum(child) / visits + exploration * range * Math.sqrt(logVisits / visits);
+			if (value > bestValue) {
+				bestValue = value;
+				bestChild = child;
+			}
+		}
+		return bestChild;
+	}
+
+	/**
+	 * Complete the game with the rollout policy and return the final score.
+	 * @param card drawn card to place first, or null if no card is pending
+	 */
+	private int rollout(Card card) {
+		if (card != null)
+			place(card, policy.choosePlay(card, grid, availablePositions.getMask(), random));
+		while (availablePositions.size() > 0) {
+			card = Card.getCard(simDeck.draw(random));
+			place(card, policy.choosePlay(card, grid, availablePositions.getMask(), random));
+		}
+		return evaluator.getScore(grid);
+	}
+
+	/**
+	 * Place a card in simulation.
+	 */
+	private void place(Card card, int pos) {
+		grid[pos / SIZE][pos % SIZE] = card;
+		availablePositions.remove(pos);
+		placed[numPlaced++] = pos;
+	}
+
+	/**
+	 * Get the off-heap search tree store (e.g. for node count and memory metrics).
+	 * @return search tree store
+	 */
+	public NodeStore getNodeStore() {
+		return store;
+	}
+
+	/**
+	 * Get the number of search iterations this player has performed.
+	 * @return number of search iterations performed
+	 */
+	public long getIterationCount() {
+		return iterationCount;
+	}
+
+	/* (non-Javadoc)
+	 * @see SeedablePlayer#setSeed(long)
+	 */
+	@Override
+	public void setSeed(long seed) {
+		random.setSeed(seed);
+	}
+
+	/* (non-Javadoc)
+	 * @see SeedablePlayer#setSimulationsPerMove(int)
+	 */
+	@Override
+	public void setSimulationsPerMove(int simulations) {
+		simulationsPerMove = simulations;
+	}
+
+	/* (non-Javadoc)
+	 * @see PokerSquaresPlayer#getName()
+	 */
+	@Override
+	public String getName() {
+		return "MCTSPlayer" + policy.getName();
+	}
+
+	/**
+	 * Get the total number of garbage collections so far.
+	 */
+	private static long getCollectionCount() {
+		long count = 0;
+		for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans())
+			count += Math.max(0, gc.getCollectionCount());
+		return count;
+	}
+
+	/**
+	 * Demonstrate MCTSPlay with the British point system, reporting tree size and garbage collections.
+	 * @param args (not used)
+	 */
+	public static void main(String[] args) {
+		PokerSquaresPointSystem system = PokerSquaresPointSystem.getBritishPointSystem();
+		System.out.println(system);
+		MCTSPlayer player = new MCTSPlayer();
+		long collections = getCollectionCount();
+		new PokerSquares(player, system).play(); // play a single game
+		System.out.printf("%d iterations, tree %s, %d garbage collections\n", player.getIterationCount(), player.getNodeStore(), getCollectionCount() - collections);
+	}
+}
@@ -1,42 +1,90 @@
 
 import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.Comparator;
 import java.util.HashSet;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
-import java.util.PriorityQueue;
 import java.util.Random;
 import java.util.Set;
 import java.util.stream.Collectors;
 import java.util.stream.IntStream;
 
-public class MyPlayer implements PokerSquaresPlayer {
+public class MyPlayer implements SeedablePlayer, SnapshotPlayer {
 
     private final int SIZE = 5; // row or col size of the grid
     private final int NUM_POS = SIZE * SIZE; // grid size or number of positions available
     private Random random = new Random(); // random generator
     private int numPlays = 0; // cards placed in the grid
     private PokerSquaresPointSystem system;
+    private HandEvaluator evaluator; // scorer specialized to the point system
     private Card[][] grid = new Card[SIZE][SIZE]; //  grid for placing cards
-    private Card[] simDeck = Card.getAllCards(); // deck of all cards
+    private SimDeck simDeck = new SimDeck(); // undealt cards, drawn from and restored during simulations
     private int[] rankMap = new int[Card.NUM_RANKS]; // cards available for a particular rank
     private int[] suitMap = new int[Card.NUM_SUITS]; // cards available for a particular suit
     private List<Set<Integer>> straights = new LinkedList<>(); // pre computed all possible straights
     private final int DEPTH = 10; // Depth for MC simulations
     private final int PRIORITY_COUNT = 8; // number of elements to be selected from priority queue
 
-    private Set<Integer> availablePositions = new HashSet<>(); // track of available positions
+    private PositionSet availablePositions = new PositionSet(); // track of available positions
+    private RolloutPolicy policy = new GreedyRolloutPolicy(); // placement policy for the simulations
+    private int[] undoTrack = new int[NUM_POS]; // positions played in a simulation, for undoing after it
+    private int[] symmetryClasses = new int[NUM_POS]; // representative of each empty position's symmetry class
+    private final int PATTERN_CACHE_SIZE = 4096; // number of partial line estimates kept in the pattern cache
+    private LinePatternCache patternCache = new LinePatternCache(PATTERN_CACHE_SIZE); // memoized checkPoints estimates
+    private LineOdds lineOdds = new LineOdds(); // exact hand odds of partial lines from the undealt cards
+    private boolean exactLineOdds = true; // whether positions are prioritized by cell values (else by checkPoints)
+    private CellValueEngine cellValues = new CellValueEngine(lineOdds); // joint row and column values of placements
+    private int[] lineRankCounts = new int[Card.NUM_RANKS]; // reusable rank counts of a line for pattern keys
+    private AnytimeSearch anytimeSearch = null; // in anytime mode, spreads simulations round-robin over the candidates
+    private int[] candidates = new int[NUM_POS]; // candidate positions, in priority order once sorted
+    private double[] candidateValues = new double[NUM_POS]; // priority of each candidate position (higher first)
+    private int[] candidateBasePoints = new int[NUM_POS]; // row and column points of each candidate (higher first)
+    private int[] candidateEmptyCounts = new int[NUM_POS]; // row and column empty cells of each candidate (fewer first)
+    private int[] candidateTieBreaks = new int[NUM_POS]; // random values breaking remaining ties reproducibly
+    private Card searchCard; // card being placed in the current anytime search
+    private int simulationsPerMove = 0; // fixed number of simulations per move, or 0 to simulate for the time per move
+    private boolean warmup = true; // whether setPointSystem warms up this class (see PlayerWarmup)
+
+    public MyPlayer() {
+    }
+
+    /**
+     * Creates a player whose simulations place cards with the given rollout policy.
+     *
+     * @param policy placement policy for the simulations
+     */
+    public MyPlayer(RolloutPolicy policy) {
+        this.policy = policy;
+    }
 
     @Override
     public void setPointSystem(PokerSquaresPointSystem system, long millis) {
         this.system = system;
+        evaluator = system.getEvaluator();
+        policy.setPointSystem(system);
+        lineOdds.setPointSystem(system);
+        patternCache.clear(); // estimates depend on the point system
+        if (warmup) {
+            // compiling the hot paths on a throwaway player, so that the first plays do not run interpreted
+            PlayerWarmup.warmUp(() -> new MyPlayer(policy), system, millis);
+        }
+    }
+
+    /**
+     * Sets whether setPointSystem warms up this class, once per JVM, with a
+     * throwaway player (see PlayerWarmup).
+     *
+     * @param warmup whether to warm up
+     */
+    public void setWarmup(boolean warmup) {
+        this.warmup = warmup;
     }
 
     @Override
     public void init() {
-        simDeck = Card.getAllCards(); // initializing sim deck before starting new game
+        simDeck.reset(); // initializing sim deck before starting new game
+        lineOdds.reset();
         // clearing grid
         for (int row = 0; row < SIZE; row++) {
             for (int col = 0; col < SIZE; col++) {
@@ -46,13 +94,11 @@ public class MyPlayer implements PokerSquaresPlayer {
         // reset numPlays
         numPlays = 0;
         // (re)initialize available positions
-        for (int i = 0; i < NUM_POS; i++) {
-            availablePositions.add(i);
-        }
+        availablePositions.fill();
 
         for (int i = 0; i < Card.NUM_RANKS; i++) {
             rankMap[i] = 4; // reseting every count of rank to 4
-            if (i < Card.NUM_RANKS - 3) {
+            if (i < Card.NUM_RANKS - 3 && straights.size() < Card.NUM_RANKS - 3) { // straights are computed in the first game only
                 Set<Integer> straight = new HashSet<>();
                 // adding combination of the straight 10,J,Q,K,A
                 if (i == 9) {
@@ -88,26 +134,38 @@ public class MyPlayer implements PokerSquaresPlayer {
     public int[] getPlay(Card card, long millisRemaining) {
         millisRemaining -= 1;
         long starttime = System.currentTimeMillis();
+        if (anytimeSearch != null) {
+            anytimeSearch.prepare(); // a new search, until cancelled
+        }
         int rowColPosition = 0, row = 0, col = 0, rowEmptyCount, colEmptyCount;
         rankMap[card.getRank()]--;
         suitMap[card.getSuit()]--;
-        simDeck[card.getCardId()] = null;
+        simDeck.remove(card.getCardId());
+        lineOdds.remove(card);
         List<Integer> bestPlays = new ArrayList<>();
 
         switch (numPlays) {
-            // random selection for first card
+            // random selection for first card (all positions of the empty grid are equivalent)
             case 0:
                 rowColPosition = random.nextInt(NUM_POS);
                 break;
             // forced placement for the last position     
             case NUM_POS - 1:
-                rowColPosition = availablePositions.iterator().next();
+                rowColPosition = availablePositions.get(0);
                 break;
             default:
                 double maxPoints = Double.NEGATIVE_INFINITY;
-                // Priority queue for adding postions
-                PriorityQueue<Position> pq = new PriorityQueue(new PositionComparator());
-                for (int pos : availablePositions) {
+                // only one position of each symmetry class (rows/cols permutations, transposition) is a candidate
+                GridSymmetry.classify(grid, symmetryClasses);
+                if (exactLineOdds) {
+                    cellValues.prepare(grid);
+                }
+                int numCandidates = 0;
+                for (int i = 0; i < availablePositions.size(); i++) {
+                    int pos = availablePositions.get(i);
+                    if (symmetryClasses[pos] != pos) {
+                        continue;
+                    }
                     rowEmptyCount = 0;
                     colEmptyCount = 0;
                     row = pos / SIZE;
@@ -130,50 +188,70 @@ public class MyPlayer implements PokerSquaresPlayer {
                     // storing base points of row and column
                     int basePoints = 0;
                     // row base points
-                    int rowPoints = system.getHandScore(rowCheck);
+                    int rowPoints = evaluator.getHandScore(rowCheck);
                     basePoints += rowPoints;
-                    // checking possible points of row if only row is not full after placing card
-                    rowPoints += (rowEmptyCount > 0) ? checkPoints(rowCheck, rowEmptyCount, rowPoints) : 0;
                     // col base points
-                    int colPoints = system.getHandScore(colCheck);
+                    int colPoints = evaluator.getHandScore(colCheck);
                     basePoints += colPoints;
-                    // checking possible points of column if only column is not full after placing card
-                    colPoints += (colEmptyCount > 0) ? checkPoints(colCheck, colEmptyCount, colPoints) : 0;
+                    if (exactLineOdds) {
+                        // expected gain of row and column together, given the undealt cards shared by all lines
+                        candidateValues[numCandidates] = cellValues.getValue(grid, card, row, col);
+                    } else {
+                        // checking possible points of row if only row is not full after placing card
+                        rowPoints += (rowEmptyCount > 0) ? estimatePoints(rowCheck, rowEmptyCount, rowPoints) : 0;
+                        // checking possible points of column if only column is not full after placing card
+                        colPoints += (colEmptyCount > 0) ? estimatePoints(colCheck, colEmptyCount, colPoints) : 0;
+                        candidateValues[numCandidates] = rowPoints + colPoints;
+                    }
 
-                    // adding position into priority queue
-                    pq.add(new Position(pos, basePoints, rowPoints + colPoints, rowEmptyCount + colEmptyCount));
+                    // adding position to the candidates
+                    candidates[numCandidates] = pos;
+                    candidateBasePoints[numCandidates] = basePoints;
+                    candidateEmptyCounts[numCandidates] = rowEmptyCount + colEmptyCount;
+                    candidateTieBreaks[numCandidates] = random.nextInt();
+                    numCandidates++;
 
                     // undoing grid position to null after calcualting possible scores
                     grid[row][col] = null;
                 }
 
+                sortCandidates(numCandidates);
+
                 // Simulation part
                 long simEndTime;
                 // getting count of sim plays if less than limit perform on all positions
-                int simPlay = pq.size() > PRIORITY_COUNT ? PRIORITY_COUNT : pq.size();
+                int simPlay = numCandidates > PRIORITY_COUNT ? PRIORITY_COUNT : numCandidates;
                 int totalPoints,
                  totalSims;
-                Set<Integer> greedyAvailablePositions; // available postions for the simulations
                 long timeRemaining = millisRemaining - (System.currentTimeMillis() - starttime); // remaining time for simulations
                 long millisPerPlay = timeRemaining / (NUM_POS - numPlays - 1); // remaining time per play 
                 long millisPerPosition = millisPerPlay / simPlay; // time allocated per position
+                int simsPerPosition = Math.max(simulationsPerMove / simPlay, 1); // or share of a fixed budget
 
-                while (simPlay > 0) {
+                if (anytimeSearch != null && simulationsPerMove == 0) {
+                    // simulating all prioritized positions at once, returning the best so far at deadline or cancellation
+                    searchCard = card;
+                    rowColPosition = anytimeSearch.search(candidates, simPlay, System.currentTimeMillis() + millisPerPlay);
+                    break;
+                }
+
+                for (int c = 0; c < simPlay; c++) {
                     totalPoints = 0;
                     totalSims = 0;
-                    int priorityPos = pq.poll().getPosition(); // getting higher priority position
-                    greedyAvailablePositions = new HashSet<>(availablePositions);
-                    greedyAvailablePositions.remove(priorityPos); // removing element from available positions
+                    int priorityPos = candidates[c]; // getting higher priority position
+                    availablePositions.remove(priorityPos); // removing element from available positions for the simulations
                     grid[priorityPos / SIZE][priorityPos % SIZE] = card; // placing card to grid
-                    int basePoints = system.getScore(grid); // getting score of the partial filled grid
+                    int basePoints = evaluator.getScore(grid); // getting score of the partial filled grid
                     simEndTime = System.currentTimeMillis() + millisPerPosition; // calculating ending time 
-                    while (System.currentTimeMillis() < simEndTime) {
-                        totalPoints += simGreedyPlay(priorityPos, greedyAvailablePositions); // running simulations
+                    // at least one simulation, so that every position has an average even with almost no time left
+                    while (totalSims == 0 || (simulationsPerMove > 0 ? totalSims < simsPerPosition : System.currentTimeMillis() < simEndTime)) {
+                        totalPoints += simGreedyPlay(priorityPos, availablePositions); // running simulations
                         totalSims++;
                     }
 
                     //undoing
                     grid[priorityPos / SIZE][priorityPos % SIZE] = null;
+                    availablePositions.restore();
 
                     //averaging all simulation score
                     double averageScore = (double) totalPoints / totalSims;
@@ -186,8 +264,6 @@ public class MyPlayer implements PokerSquaresPlayer {
                     } else if (averageScore == maxPoints) {
                         bestPlays.add(priorityPos); // adding to set of best plays
                     }
-
-                    simPlay--;
                 }
 
                 // getting best position ( breaking the tie randomly)
@@ -205,11 +281,273 @@ public class MyPlayer implements PokerSquaresPlayer {
         return playPos;
     }
 
+    /**
+     * Returns the position of the card to be placed in the given grid, after
+     * rebuilding the grid, rank and suit counts, simulation deck and available
+     * positions from it.
+     *
+     * @param grid
+     * @param card
+     * @param millisRemaining
+     * @return
+     */
+    @Override
+    public int[] getPlay(Card[][] grid, Card card, long millisRemaining) {
+        init();
+        for (int pos = 0; pos < NUM_POS; pos++) {
+            Card placed = grid[pos / SIZE][pos % SIZE];
+            if (placed != null) {
+                this.grid[pos / SIZE][pos % SIZE] = placed;
+                rankMap[placed.getRank()]--;
+                suitMap[placed.getSuit()]--;
+                simDeck.remove(placed.getCardId());
+                lineOdds.remove(placed);
+                availablePositions.remove(pos);
+                numPlays++;
+            }
+        }
+        return getPlay(card, millisRemaining);
+    }
+
+    /**
+     * Switches to (or, given false, from) anytime mode, in which each play
+     * spreads its simulations round-robin over the prioritized positions,
+     * publishes the current best position to the listener as simulations
+     * accumulate, and can be cut short with cancelSearch().
+     *
+     * @param enabled whether to use anytime mode
+     * @param listener receives best play updates, or null for none
+     */
+    public void setAnytimeMode(boolean enabled, SearchListener listener) {
+        anytimeSearch = enabled ? new AnytimeSearch(this::simulateCandidate, listener) : null;
+    }
+
+    /**
+     * Sets whether positions are prioritized by the expected gain of their row
+     * and column given the undealt cards shared by all lines (the default; see
+     * CellValueEngine), or by the checkPoints heuristic.
+     *
+     * @param exactLineOdds whether to use exact line odds
+     */
+    public void setExactLineOdds(boolean exactLineOdds) {
+        this.exactLineOdds = exactLineOdds;
+    }
+
+    /**
+     * Sorts the first numCandidates candidate positions by priority: higher
+     * value first, then higher base points, then fewer empty cells, then the
+     * random tie break.
+     *
+     * @param numCandidates number of candidates
+     */
+    private void sortCandidates(int numCandidates) {
+        for (int i = 1; i < numCandidates; i++) {
+            for (int j = i; j > 0 && compareCandidates(j, j - 1) < 0; j--) {
+                swapCandidates(j, j - 1);
+            }
+        }
+    }
+
+    private int compareCandidates(int i, int j) {
+        if (candidateValues[i] != candidateValues[j]) {
+            return Double.compare(candidateValues[j], candidateValues[i]);
+        }
+        if (candidateBasePoints[i] != candidateBasePoints[j]) {
+            return candidateBasePoints[j] - candidateBasePoints[i];
+        }
+        if (candidateEmptyCounts[i] != candidateEmptyCounts[j]) {
+            return candidateEmptyCounts[i] - candidateEmptyCounts[j];
+        }
+        return Integer.compare(candidateTieBreaks[i], candidateTieBreaks[j]);
+    }
+
+    private void swapCandidates(int i, int j) {
+        int position = candidates[i];
+        candidates[i] = candidates[j];
+        candidates[j] = position;
+        double value = candidateValues[i];
+        candidateValues[i] = candidateValues[j];
+        candidateValues[j] = value;
+        int basePoints = candidateBasePoints[i];
+        candidateBasePoints[i] = candidateBasePoints[j];
+        candidateBasePoints[j] = basePoints;
+        int emptyCount = candidateEmptyCounts[i];
+        candidateEmptyCounts[i] = candidateEmptyCounts[j];
+        candidateEmptyCounts[j] = emptyCount;
+        int tieBreak = candidateTieBreaks[i];
+        candidateTieBreaks[i] = candidateTieBreaks[j];
+        candidateTieBreaks[j] = tieBreak;
+    }
+
+    /**
+     * Returns the anytime search, or null if not in anytime mode.
+     *
+     * @return
+     */
+    public AnytimeSearch getAnytimeSearch() {
+        return anytimeSearch;
+    }
+
+    /**
+     * In anytime mode, ends the current search as soon as possible with the
+     * best position so far. Safe to call from any thread.
+     */
+    public void cancelSearch() {
+        AnytimeSearch search = anytimeSearch;
+        if (search != null) {
+            search.cancel();
+        }
+    }
+
+    /**
+     * Simulates play after placing the card under anytime search at the given
+     * position.
+     *
+     * @param position
+     * @return
+     */
+    private double simulateCandidate(int position) {
+        availablePositions.remove(position);
+        grid[position / SIZE][position % SIZE] = searchCard;
+        int score = simGreedyPlay(position, availablePositions);
+        grid[position / SIZE][position % SIZE] = null;
+        availablePositions.restore();
+        return score;
+    }
+
+    @Override
+    public void setSeed(long seed) {
+        random.setSeed(seed);
+    }
+
+    /**
+     * Sets a fixed number of simulations per move, divided evenly among the
+     * prioritized positions (at least one each), or 0 to simulate for the time
+     * per move. With a fixed budget, anytime mode is not used, so that seeded
+     * games are repeatable move for move.
+     *
+     * @param simulations simulations per move, or 0 for timed simulation
+     */
+    @Override
+    public void setSimulationsPerMove(int simulations) {
+        simulationsPerMove = simulations;
+    }
+
     @Override
     public String getName() {
         return "MyPlayer";
     }
 
+    /**
+     * Returns the checkPoints estimate of a partial row or col, looking it up in the pattern cache first.
+     *
+     * @param list
+     * @param emptyCount
+     * @param basePoints
+     * @return
+     */
+    public int estimatePoints(Card[] list, int emptyCount, int basePoints) {
+        long key = linePatternKey(list, emptyCount);
+        Integer estimate = patternCache.get(key);
+        if (estimate == null) {
+            estimate = checkPoints(list, emptyCount, basePoints);
+            patternCache.put(key, estimate);
+        }
+        assert estimate == checkPoints(list, emptyCount, basePoints) : "pattern key " + key + " shared by different estimates";
+        return estimate;
+    }
+
+    /**
+     * Returns a canonical key of everything checkPoints depends on for the given partial line: the empty count,
+     * the (in line, remaining in deck) counts of each rank of the line in rank order (actual ranks only matter
+     * through straights, which are captured by flags), the remaining aces and whether the line holds an ace (the
+     * one pair check starts from rank 0, so an ace in the line is not counted for two pair until the pair is
+     * found), and flags for three of a kind, single suit, flush, straight flush, royal flush and straight
+     * possibilities. Lines with equal keys have equal estimates under the same point system (checked by an
+     * assertion in estimatePoints when assertions are enabled).
+     *
+     * @param list
+     * @param emptyCount
+     * @return
+     */
+    public long linePatternKey(Card[] list, int emptyCount) {
+        int rankMask = 0, suitMask = 0, suit = 0;
+        int minRank = Integer.MAX_VALUE; // min rank other than ace (for royal flush check)
+        for (Card c : list) {
+            if (c == null) {
+                continue;
+            }
+            lineRankCounts[c.getRank()]++;
+            rankMask |= 1 << c.getRank();
+            suitMask |= 1 << c.getSuit();
+            suit = c.getSuit();
+            if (c.getRank() != 0 && c.getRank() < minRank) {
+                minRank = c.getRank();
+            }
+        }
+
+        long key = 8 | emptyCount; // leading marker bit makes the number of rank groups unambiguous
+        for (int r = 0; r < Card.NUM_RANKS; r++) {
+            if (lineRankCounts[r] > 0) {
+                key = (key << 6) | (lineRankCounts[r] << 3) | rankMap[r];
+                lineRankCounts[r] = 0;
+            }
+        }
+
+        boolean singleSuit = Integer.bitCount(suitMask) == 1;
+        boolean flush = singleSuit && suitMap[suit] >= emptyCount;
+        int flags = rankMap[0];
+        flags = (flags << 1) | (rankMask & 1); // whether the line holds an ace
+        flags = (flags << 1) | (isThreeOfAKindPossible() ? 1 : 0);
+        flags = (flags << 1) | (singleSuit ? 1 : 0);
+        flags = (flags << 1) | (flush ? 1 : 0);
+        flags = (flags << 1) | (flush && straightPossible(rankMask, true, suit) ? 1 : 0);
+        flags = (flags << 1) | (singleSuit && minRank >= 9 && royalFlushPossible(rankMask, suit) ? 1 : 0);
+        flags = (flags << 1) | (straightPossible(rankMask, false, suit) ? 1 : 0);
+        return (key << 10) | flags;
+    }
+
+    // bit mask version of checkStraight: the first straight containing the ranks decides a flush check
+    private boolean straightPossible(int rankMask, boolean isFlush, int suit) {
+        for (int i = 0; i < Card.NUM_RANKS - 3; i++) {
+            int straight = (i == 9) ? (0xF << 9) | 1 : 0x1F << i;
+            if ((rankMask & ~straight) != 0) {
+                continue;
+            }
+            boolean possible = true;
+            for (int r = 0; r < Card.NUM_RANKS; r++) {
+                if ((straight & ~rankMask & (1 << r)) != 0
+                        && (isFlush ? !simDeck.contains((suit * Card.NUM_RANKS) + r) : rankMap[r] == 0)) {
+                    possible = false;
+                }
+            }
+            if (isFlush || possible) {
+                return possible;
+            }
+        }
+        return false;
+    }
+
+    // bit mask version of checkRoyalFlush
+    private boolean royalFlushPossible(int rankMask, int suit) {
+        int royal = (0xF << 9) | 1;
+        for (int r = 0; r < Card.NUM_RANKS; r++) {
+            if ((royal & ~rankMask & (1 << r)) != 0 && !simDeck.contains((suit * Card.NUM_RANKS) + r)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Returns the cache of partial line estimates (for its hit and miss counters).
+     *
+     * @return
+     */
+    public LinePatternCache getPatternCache() {
+        return patternCache;
+    }
+
     /**
      * Utility function to check the possible points by giving partial rows or cols, along with emptycount and 
      * its base points
@@ -240,43 +578,43 @@ public class MyPlayer implements PokerSquaresPlayer {
         int hands = 0;
 
         // if there are no points
-        if (basePoints == system.getHandScore(PokerHand.HIGH_CARD)) {
-            possiblePoints += system.getHandScore(PokerHand.ONE_PAIR);
+        if (basePoints == evaluator.highCard) {
+            possiblePoints += evaluator.onePair;
             hands += 1;
             boolean isThreePossible = false;
             // possible hands based on empty positions
             switch (emptyCount) {
                 case 4:
                     int singleElement = ranks.iterator().next();
-                    possiblePoints += system.getHandScore(PokerHand.TWO_PAIR);
+                    possiblePoints += evaluator.twoPair;
                     //modification of condition
                     if (rankMap[singleElement] >= 2 || isThreeOfAKindPossible()) {
-                        possiblePoints += system.getHandScore(PokerHand.THREE_OF_A_KIND);
+                        possiblePoints += evaluator.threeOfAKind;
                         isThreePossible = true;
                         hands += 1;
                     }
                     if (rankMap[singleElement] == 3) {
-                        possiblePoints += system.getHandScore(PokerHand.FOUR_OF_A_KIND);
+                        possiblePoints += evaluator.fourOfAKind;
                         hands += 1;
                     }
 
                     if (isThreePossible) {
-                        possiblePoints += system.getHandScore(PokerHand.FULL_HOUSE);
+                        possiblePoints += evaluator.fullHouse;
                         hands += 1;
                     }
 
                     break;
                 case 3:
-                    possiblePoints += system.getHandScore(PokerHand.TWO_PAIR);
+                    possiblePoints += evaluator.twoPair;
                     hands += 1;
                     if (isThreeOfAKindPossible()) {
-                        possiblePoints += system.getHandScore(PokerHand.THREE_OF_A_KIND);
+                        possiblePoints += evaluator.threeOfAKind;
                         hands += 1;
 
                     }
                     for (int r : ranks) {
                         if (rankMap[r] > 1) {
-                            possiblePoints += system.getHandScore(PokerHand.FULL_HOUSE);
+                            possiblePoints += evaluator.fullHouse;
                             hands += 1;
                             break;
                         }
@@ -293,11 +631,11 @@ public class MyPlayer implements PokerSquaresPlayer {
                         }
                     }
                     if (pairsPossible == 2) {
-                        possiblePoints += system.getHandScore(PokerHand.TWO_PAIR);
+                        possiblePoints += evaluator.twoPair;
                         hands += 1;
                     }
                     if (triplets > 0) {
-                        possiblePoints += system.getHandScore(PokerHand.THREE_OF_A_KIND);
+                        possiblePoints += evaluator.threeOfAKind;
                         hands += 1;
                     }
                     break;
@@ -306,25 +644,25 @@ public class MyPlayer implements PokerSquaresPlayer {
             }
 
          // if it already has one pair   
-        } else if (basePoints == system.getHandScore(PokerHand.ONE_PAIR)) {
+        } else if (basePoints == evaluator.onePair) {
             switch (emptyCount) {
                 case 3:
                     if (isThreeOfAKindPossible()) {
-                        possiblePoints += system.getHandScore(PokerHand.FULL_HOUSE);
+                        possiblePoints += evaluator.fullHouse;
                         hands += 1;
                     }
-                    possiblePoints += system.getHandScore(PokerHand.TWO_PAIR);
+                    possiblePoints += evaluator.twoPair;
                     hands += 1;
                     if (rankMap[ranks.iterator().next()] == 2) {
-                        possiblePoints += system.getHandScore(PokerHand.FOUR_OF_A_KIND);
+                        possiblePoints += evaluator.fourOfAKind;
                         hands += 1;
                     } else if (rankMap[ranks.iterator().next()] == 1 || isThreeOfAKindPossible()) {
-                        possiblePoints += system.getHandScore(PokerHand.THREE_OF_A_KIND);
+                        possiblePoints += evaluator.threeOfAKind;
                         hands += 1;
                     }
                     break;
                 case 2: {
-                    possiblePoints += system.getHandScore(PokerHand.TWO_PAIR);
+                    possiblePoints += evaluator.twoPair;
                     hands += 1;
                     int pairElement = 0, singleElement = 0;
                     for (Map.Entry<Integer, Long> entry : rankCount.entrySet()) {
@@ -335,12 +673,12 @@ public class MyPlayer implements PokerSquaresPlayer {
                         }
                     }
                     if (rankMap[pairElement] == 2) {
-                        possiblePoints += system.getHandScore(PokerHand.FOUR_OF_A_KIND);
+                        possiblePoints += evaluator.fourOfAKind;
                         hands += 1;
                     }
                     if (rankMap[pairElement] >= 1 || rankMap[singleElement] >= 2) {
-                        possiblePoints += system.getHandScore(PokerHand.THREE_OF_A_KIND);
-                        possiblePoints += system.getHandScore(PokerHand.FULL_HOUSE);
+                        possiblePoints += evaluator.threeOfAKind;
+                        possiblePoints += evaluator.fullHouse;
                         hands += 2;
                     }
                     break;
@@ -352,12 +690,12 @@ public class MyPlayer implements PokerSquaresPlayer {
                             pairElement = entry.getKey();
                         }
                         if (rankMap[pairElement] >= 1) {
-                            possiblePoints += system.getHandScore(PokerHand.THREE_OF_A_KIND);
+                            possiblePoints += evaluator.threeOfAKind;
                             hands += 1;
                         }
                         for (int r : ranks) {
                             if (r != pairElement && rankMap[r] >= 1) {
-                                possiblePoints += system.getHandScore(PokerHand.TWO_PAIR);
+                                possiblePoints += evaluator.twoPair;
                                 hands += 1;
                                 break;
                             }
@@ -367,16 +705,16 @@ public class MyPlayer implements PokerSquaresPlayer {
                 }
             }
           // if it already has two pairs  
-        } else if (basePoints == system.getHandScore(PokerHand.TWO_PAIR)) {
+        } else if (basePoints == evaluator.twoPair) {
             for (int r : ranks) {
                 if (rankMap[r] >= 1) {
-                    possiblePoints += system.getHandScore(PokerHand.FULL_HOUSE);
+                    possiblePoints += evaluator.fullHouse;
                     hands += 1;
                 }
             }
 
          // if list contains a three of a kind   
-        } else if (basePoints == system.getHandScore(PokerHand.THREE_OF_A_KIND)) {
+        } else if (basePoints == evaluator.threeOfAKind) {
             int tripletElement = 0, singleElement = -1;
             for (Map.Entry<Integer, Long> entry : rankCount.entrySet()) {
                 if (entry.getValue() == 3) {
@@ -388,11 +726,11 @@ public class MyPlayer implements PokerSquaresPlayer {
             }
 
             if (rankMap[tripletElement] == 1) {
-                possiblePoints += system.getHandScore(PokerHand.FOUR_OF_A_KIND);
+                possiblePoints += evaluator.fourOfAKind;
                 hands += 1;
             }
             if ((singleElement != -1 && rankMap[singleElement] >= 1) || emptyCount == 2) {
-                possiblePoints += system.getHandScore(PokerHand.FULL_HOUSE);
+                possiblePoints += evaluator.fullHouse;
                 hands += 1;
             }
 
@@ -404,25 +742,25 @@ public class MyPlayer implements PokerSquaresPlayer {
 
             // then 1st check flush possible
             if (suitMap[suits.iterator().next()] >= emptyCount) {
-                possiblePoints += system.getHandScore(PokerHand.FLUSH);
+                possiblePoints += evaluator.flush;
                 hands += 1;
                 // if flush possible then check for straight flush
                 if (checkStraight(suits, true, ranks)) {
-                    possiblePoints += system.getHandScore(PokerHand.STRAIGHT_FLUSH);
+                    possiblePoints += evaluator.straightFlush;
                     hands += 1;
                 }
             }
 
             // then check royal flush possible
             if (minRank >= 9 && checkRoyalFlush(suits.iterator().next(), ranks)) {
-                possiblePoints += system.getHandScore(PokerHand.ROYAL_FLUSH);
+                possiblePoints += evaluator.royalFlush;
                 hands += 1;
             }
         }
 
         // checking straight only
         if (checkStraight(suits, false, ranks)) {
-            possiblePoints += system.getHandScore(PokerHand.STRAIGHT);
+            possiblePoints += evaluator.straight;
             hands += 1;
         }
 
@@ -440,7 +778,7 @@ public class MyPlayer implements PokerSquaresPlayer {
                 if (isFlush) {
                     int suit = suits.iterator().next();
                     for (Integer i : temp) {
-                        if (simDeck[(suit * Card.NUM_RANKS) + i] == null) {
+                        if (!simDeck.contains((suit * Card.NUM_RANKS) + i)) {
                             return false;
                         }
                     }
@@ -465,11 +803,11 @@ public class MyPlayer implements PokerSquaresPlayer {
 
     // utility function to check royal flush
     public boolean checkRoyalFlush(int suit, Set<Integer> ranks) {
-        if (!ranks.contains(0) && simDeck[(suit * Card.NUM_RANKS) + 0] == null) {
+        if (!ranks.contains(0) && !simDeck.contains((suit * Card.NUM_RANKS) + 0)) {
             return false;
         }
         for (int j = 9; j < 13; j++) {
-            if (!ranks.contains(j) && simDeck[(suit * Card.NUM_RANKS) + j] == null) {
+            if (!ranks.contains(j) && !simDeck.contains((suit * Card.NUM_RANKS) + j)) {
                 return false;
             }
         }
@@ -483,49 +821,28 @@ public class MyPlayer implements PokerSquaresPlayer {
     }
 
     //simulation part
-    public int simGreedyPlay(int position, Set<Integer> availablePositions) {
-        int remainingPlays = availablePositions.size(), col = 0, row = 0;
-        List<Integer> bestPlays = new ArrayList<>();
-        int[] undoTrack = new int[remainingPlays]; // storing positions to perform undoing after simulations
-        int maxScore = Integer.MIN_VALUE;
-        List<Card> deck = Arrays.asList(simDeck).stream().filter(c -> c != null).collect(Collectors.toList());
+    public int simGreedyPlay(int position, PositionSet availablePositions) {
+        int remainingPlays = availablePositions.size();
+        int mark = availablePositions.mark(); // positions removed below are restored after the simulation
         int depth = remainingPlays > DEPTH ? DEPTH : remainingPlays; // setting depth if remaining plays are greater than limit
         for (int i = 0; i < depth; i++) {
-            int randomIndex = random.nextInt(deck.size());
-            Card card = deck.get(randomIndex);
-            bestPlays.clear();
-            maxScore = Integer.MIN_VALUE;
-            for (int pos : availablePositions) {
-                row = pos / SIZE;
-                col = pos % SIZE;
-                grid[row][col] = card;
-                int score = system.getScore(grid);
-                if (score > maxScore) {
-                    maxScore = score;
-                    bestPlays.clear();
-                    bestPlays.add(pos);
-                } else if (score == maxScore) {
-                    bestPlays.add(pos);
-                }
-
-                grid[row][col] = null;
-            }
-
-            deck.remove(randomIndex);
-            int checkr = random.nextInt(bestPlays.size());
-            int selectedPos = bestPlays.get(checkr);
+            Card card = Card.getCard(simDeck.draw(random)); // drawing a random undealt card
+            // letting the rollout policy choose among the open positions (greedy on full score by default)
+            int selectedPos = policy.choosePlay(card, grid, availablePositions.getMask(), random);
             undoTrack[i] = selectedPos;
             availablePositions.remove(selectedPos);
             grid[selectedPos / SIZE][selectedPos % SIZE] = card;
 
         }
 
-        int finalScore = system.getScore(grid); // getting final score of grid
+        int finalScore = evaluator.getScore(grid); // getting final score of grid
 
         //performing undoing
         for (int i = 0; i < depth; i++) {
             grid[undoTrack[i] / SIZE][undoTrack[i] % SIZE] = null;
         }
+        availablePositions.restoreTo(mark);
+        simDeck.undoAll(); // returning drawn cards to the deck
 
         return finalScore;
 
@@ -538,73 +855,3 @@ public class MyPlayer implements PokerSquaresPlayer {
     }
 
 }
-
-/**
- * To store position details 
- */
-class Position {
-
-    private int position;
-    private int basePoints;
-    private int totalPoints;
-    private int emptyCount;
-
-    public Position(int position, int basePoints, int totalPoints, int emptyCount) {
-        this.position = position;
-        this.basePoints = basePoints;
-        this.totalPoints = totalPoints;
-        this.emptyCount = emptyCount;
-
-    }
-
-    public int getEmptyCount() {
-        return emptyCount;
-    }
-
-    public void setEmptyCount(int emptyCount) {
-        this.emptyCount = emptyCount;
-    }
-
-    public int getPosition() {
-        return position;
-    }
-
-    public void setPosition(int position) {
-        this.position = position;
-    }
-
-    public int getBasePoints() {
-        return basePoints;
-    }
-
-    public void setBasePoints(int basePoints) {
-        this.basePoints = basePoints;
-    }
-
-    public int getTotalPoints() {
-        return totalPoints;
-    }
-
-    public void setTotalPoints(int totalPoints) {
-        this.totalPoints = totalPoints;
-    }
-}
-
-// comparator used to sort the positions based on the totalpoints, basepoints and emptycounts
-// ties are solved randomly
-class PositionComparator implements Comparator<Position> {
-
-    @Override
-    public int compare(Position p1, Position p2) {
-        if (p2.getTotalPoints() - p1.getTotalPoints() == 0) {
-            if (p1.getBasePoints() - p2.getBasePoints() == 0) {
-                if (p2.getEmptyCount() - p1.getEmptyCount() == 0) {
-                    return new Random().nextBoolean() == true ? 1 : -1;
-                }
-                return p1.getEmptyCount() - p2.getEmptyCount();
-            }
-            return p2.getBasePoints() - p1.getBasePoints();
-        }
-        return p2.getTotalPoints() - p1.getTotalPoints();
-    }
-}
@@ -0,0 +1,191 @@
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.DoubleBuffer;
+import java.nio.IntBuffer;
+import java.nio.ShortBuffer;
+
+/**
+ * NodeStore - off-heap, arena-style storage for the nodes of a search tree over Poker Squares decision and chance
+ * nodes.
+ *
+ * Nodes are integer handles into one direct ByteBuffer laid out as a struct of arrays (one region per field), so
+ * the tree creates no Java objects: allocation bumps a counter and reset() discards the whole tree in O(1).  Each
+ * node holds its kind, a label (the position placed for a child of a decision node, or the card drawn for a child
+ * of a chance node), its first child and next sibling handles, its visit count and the sum of its sampled scores.
+ * The store is not thread-safe.
+ */
+public class NodeStore {
+
+	public static final byte DECISION = 0; // a card has been drawn and must be placed; children are labeled by position
+	public static final byte CHANCE = 1; // a card has been placed; children are labeled by the next card drawn
+	public static final int NONE = -1; // null node handle
+	public static final int BYTES_PER_NODE = Integer.BYTES * 3 + Double.BYTES + Short.BYTES + Byte.BYTES;
+
+	private final int capacity; // maximum number of nodes
+	private final ByteBuffer memory; // off-heap memory of all fields
+	private final IntBuffer visits; // visit count of each node
+	private final IntBuffer firstChild; // first child handle of each node
+	private final IntBuffer nextSibling; // next sibling handle of each node
+	private final DoubleBuffer scoreSum; // sum of sampled scores of each node
+	private final ShortBuffer label; // position or card label of each node
+	private final ByteBuffer kind; // DECISION or CHANCE
+	private int size = 0; // number of allocated nodes
+
+	/**
+	 * Create an empty store for the given number of nodes.
+	 * @param capacity maximum number of nodes
+	 */
+	public NodeStore(int capacity) {
+		this.capacity = capacity;
+		memory = ByteBuffer.allocateDirect(capacity * BYTES_PER_NODE).order(ByteOrder.nativeOrder());
+		int offset = 0;
+		scoreSum = region(offset, capacity * Double.BYTES).asDoubleBuffer(); // 8-byte aligned fields first
+		offset += capacity * Double.BYTES;
+		visits = region(offset, capacity * Integer.BYTES).asIntBuffer();
+		offset += capacity * Integer.BYTES;
+		firstChild = region(offset, capacity * Integer.BYTES).asIntBuffer();
+		offset += capacity * Integer.BYTES;
+		nextSibling = region(offset, capacity * Integer.BYTES).asIntBuffer();
+		offset += capacity * Integer.BYTES;
+		label = region(offset, capacity * Short.BYTES).asShortBuffer();
+		offset += capacity * Short.BYTES;
+		kind = region(offset, capacity);
+	}
+
+	/**
+	 * Return a native-order view of the given byte range of the memory.
+	 */
+	private ByteBuffer region(int offset, int length) {
+		ByteBuffer view = memory.duplicate();
+		view.position(offset).limit(offset + length);
+		return view.slice().order(ByteOrder.nativeOrder());
+	}
+
+	/**
+	 * Discard all nodes.
+	 */
+	public void reset() {
+		size = 0;
+	}
+
+	/**
+	 * Allocate a node with no children, visits or score.
+	 * @param nodeKind DECISION or CHANCE
+	 * @param nodeLabel position or card label
+	 * @return handle of the new node, or NONE if the store is full
+	 */
+	public int allocate(byte nodeKind, int nodeLabel) {
+		if (size == capacity)
+			return NONE;
+		int node = size++;
+		kind.put(node, nodeKind);
+		label.put(node, (short) nodeLabel);
+		firstChild.put(node, NONE);
+		nextSibling.put(node, NONE);
+		visits.put(node, 0);
+		scoreSum.put(node, 0);
+		return node;
+	}
+
+	/**
+	 * Make a node the first child of a parent.
+	 * @param parent parent handle
+	 * @param child handle of a node without a parent
+	 */
+	public void addChild(int parent, int child) {
+		nextSibling.put(child, firstChild.get(parent));
+		firstChild.put(parent, child);
+	}
+
+	/**
+	 * Find the child with the given label.
+	 * @param parent parent handle
+	 * @param childLabel child label
+	 * @return child handle, or NONE if there is no such child
+	 */
+	public int findChild(int parent, int childLabel) {
+		for (int child = firstChild.get(parent); child != NONE; child = nextSibling.get(child))
+			if (label.get(child) == childLabel)
+				return child;
+		return NONE;
+	}
+
+	/**
+	 * Record a visit of a node with the given sampled score.
+	 * @param node node handle
+	 * @param score sampled score
+	 */
+	public void update(int node, double score) {
+		visits.put(node, visits.get(node) + 1);
+		scoreSum.put(node, scoreSum.get(node) + score);
+	}
+
+	public byte getKind(int node) {
+		return kind.get(node);
+	}
+
+	public int getLabel(int node) {
+		return label.get(node);
+	}
+
+	public int getFirstChild(int node) {
+		return firstChild.get(node);
+	}
+
+	public int getNextSibling(int node) {
+		return nextSibling.get(node);
+	}
+
+	public int getVisits(int node) {
+		return visits.get(node);
+	}
+
+	public double getScoreSum(int node) {
+		return scoreSum.get(node);
+	}
+
+	/**
+	 * Get the mean sampled score of a node.
+	 * @param node node handle
+	 * @return mean sampled score, or 0 if the node has not been visited
+	 */
+	public double getMeanScore(int node) {
+		int n = visits.get(node);
+		return n == 0 ? 0 : scoreSum.get(node) / n;
+	}
+
+	/**
+	 * Get the number of allocated nodes.
+	 * @return number of allocated nodes
+	 */
+	public int size() {
+		return size;
+	}
+
+	public int getCapacity() {
+		return capacity;
+	}
+
+	/**
+	 * Get the number of off-heap bytes used by allocated nodes.
+	 * @return bytes used by allocated nodes
+	 */
+	public long getBytesUsed() {
+		return (long) size * BYTES_PER_NODE;
+	}
+
+	/**
+	 * Get the number of off-heap bytes reserved for the full capacity.
+	 * @return bytes reserved
+	 */
+	public long getBytesReserved() {
+		return (long) capacity * BYTES_PER_NODE;
+	}
+
+	/* (non-Javadoc)
+	 * @see java.lang.Object#toString()
+	 */
+	public String toString() {
+		return String.format("%d/%d nodes, %d bytes per node, %d/%d bytes", size, capacity, BYTES_PER_NODE, getBytesUsed(), getBytesReserved());
+	}
+}
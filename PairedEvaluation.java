@@ -0,0 +1,123 @@
+import java.util.ArrayList;
+
+/**
+ * PairedEvaluation - variance-reduced comparison of Poker Squares players.
+ *
+ * All players play the same deals (common random numbers): game i uses deal seed startSeed + i for every player,
+ * and SeedablePlayers are also seeded with it.  Since much of the variance of a game score comes from the deal,
+ * the per-deal score differences between two players have far smaller variance than the scores themselves, so
+ * paired confidence intervals narrow much faster than those of independent score means.
+ *
+ * Evaluation is sequential: after a minimum number of games, it stops as soon as the player with the highest mean
+ * score is significantly better than every other, or when the maximum number of games has been played.  Since every
+ * pairwise difference may be tested at every look (each check, and the final report), the critical value is a
+ * Bonferroni bound over looks and pairs: with K looks and P pairs, each test is made at level alpha / (K P), so that
+ * the probability of declaring any difference significant in the wrong direction, at any look, is at most alpha.
+ * This is conservative (the looks are strongly correlated), and a larger check interval buys a smaller critical value.
+ */
+public class PairedEvaluation {
+
+	public static final double DEFAULT_ALPHA = 0.05; // family-wise error rate over all looks and pairs
+	public static final int DEFAULT_CHECK_INTERVAL = 10; // games played between significance checks
+
+	/**
+	 * Evaluate the given players on common deals with the default error rate and check interval.
+	 * @see #evaluate(ArrayList, PokerSquaresPointSystem, int, int, long, double, int)
+	 */
+	public static RunningStatistics[][] evaluate(ArrayList<PokerSquaresPlayer> players, PokerSquaresPointSystem system,
+			int minGames, int maxGames, long startSeed) {
+		return evaluate(players, system, minGames, maxGames, startSeed, DEFAULT_ALPHA, DEFAULT_CHECK_INTERVAL);
+	}
+
+	/**
+	 * Evaluate the given players on common deals, stopping once the best player is significantly better than every
+	 * other.
+	 * @param players Poker Squares players to compare
+	 * @param system point system
+	 * @param minGames minimum number of games played by each player before stopping may occur
+	 * @param maxGames maximum number of games played by each player
+	 * @param startSeed seed of the first deal. Successive games use successive seeds
+	 * @param alpha family-wise error rate of the significance tests over all looks and pairs (e.g. 0.05)
+	 * @param checkInterval number of games played between significance checks
+	 * @return a matrix whose entry [i][j] (i &lt; j) holds statistics of player i's score minus player j's score, and
+	 * whose diagonal entry [i][i] holds statistics of player i's score
+	 */
+	public static RunningStatistics[][] evaluate(ArrayList<PokerSquaresPlayer> players, PokerSquaresPointSystem system,
+			int minGames, int maxGames, long startSeed, double alpha, int checkInterval) {
+		int n = players.size();
+		// Bonferroni bound over every check and the final report, and every pair
+		int numLooks = maxGames / checkInterval - (Math.max(minGames, 1) - 1) / checkInterval;
+		if (maxGames % checkInterval != 0 || numLooks < 1)
+			numLooks++;
+		int numPairs = Math.max(n * (n - 1) / 2, 1);
+		double z = RunningStatistics.normalCriticalValue(alpha / (2.0 * numLooks * numPairs));
+		RunningStatistics[][] stats = new RunningStatistics[n][n];
+		PokerSquares[] games = new PokerSquares[n];
+		for (int i = 0; i < n; i++) {
+			games[i] = new PokerSquares(players.get(i), system);
+			games[i].setVerbose(false);
+			for (int j = i; j < n; j++)
+				stats[i][j] = new RunningStatistics();
+		}
+
+		int[] scores = new int[n];
+		int numGames = 0;
+		while (numGames < maxGames) {
+			long seed = startSeed + numGames;
+			for (int i = 0; i < n; i++) {
+				PokerSquaresPlayer player = players.get(i);
+				if (player instanceof SeedablePlayer)
+					((SeedablePlayer) player).setSeed(seed);
+				games[i].setSeed(seed);
+				scores[i] = games[i].play();
+			}
+			for (int i = 0; i < n; i++) {
+				stats[i][i].add(scores[i]);
+				for (int j = i + 1; j < n; j++)
+					stats[i][j].add(scores[i] - scores[j]);
+			}
+			numGames++;
+			if (numGames >= minGames && numGames % checkInterval == 0 && bestSeparated(stats, z))
+				break;
+		}
+
+		System.out.printf("%d games per player, critical value %.3f (alpha %.3f over %d looks and %d pairs)\n", numGames, z,
+				alpha, numLooks, numPairs);
+		for (int i = 0; i < n; i++)
+			System.out.printf("%20s %s\n", players.get(i).getName(), stats[i][i]);
+		for (int i = 0; i < n; i++)
+			for (int j = i + 1; j < n; j++) {
+				RunningStatistics diff = stats[i][j];
+				double halfWidth = diff.getConfidenceHalfWidth(z);
+				System.out.printf("\"%s\" - \"%s\": %f [%f, %f]%s\n", players.get(i).getName(), players.get(j).getName(),
+						diff.getMean(), diff.getMean() - halfWidth, diff.getMean() + halfWidth,
+						Math.abs(diff.getZ()) >= z ? " significant" : "");
+			}
+		return stats;
+	}
+
+	/**
+	 * Return whether or not the player with the highest mean score is significantly better than every other.
+	 */
+	private static boolean bestSeparated(RunningStatistics[][] stats, double z) {
+		int best = 0;
+		for (int i = 1; i < stats.length; i++)
+			if (stats[i][i].getMean() > stats[best][best].getMean())
+				best = i;
+		for (int j = 0; j < stats.length; j++)
+			if (j != best && (best < j ? stats[best][j].getZ() : -stats[j][best].getZ()) < z)
+				return false;
+		return true;
+	}
+
+	/**
+	 * Demonstrate a paired evaluation of the example players.
+	 * @param args (not used)
+	 */
+	public static void main(String[] args) {
+		ArrayList<PokerSquaresPlayer> players = new ArrayList<PokerSquaresPlayer>();
+		players.add(new RandomPlayer());
+		players.add(new FlushPlayer());
+		evaluate(players, PokerSquaresPointSystem.getBritishPointSystem(), 30, 10000, 0L);
+	}
+}
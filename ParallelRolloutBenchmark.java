@@ -0,0 +1,66 @@
+import java.util.Random;
+
+/**
+ * ParallelRolloutBenchmark - measures the lock-free statistics aggregation of parallel rollouts at 1 to 64 threads.
+ *
+ * First, StripedAccumulator update throughput is measured in isolation, with each thread adding scores for random
+ * candidates to its own padded stripe, against all threads adding to a single shared stripe (as with one set of
+ * shared atomic counters).  Second, GreedyMCPlayer simulations per second are reported over whole games with its
+ * rollouts spread over worker threads (without early stopping, which would shift time between plays of different
+ * rollout lengths).  Scaling beyond the number of available processors is not expected; the larger thread counts
+ * show the cost of oversubscription.
+ */
+public class ParallelRolloutBenchmark {
+
+	private static final int NUM_POS = PokerSquares.SIZE * PokerSquares.SIZE; // number of positions in square grid
+	private static final int[] THREAD_COUNTS = {1, 2, 4, 8, 16, 32, 64}; // numbers of threads measured
+
+	/**
+	 * Add random scores from the given number of threads for the given time; return updates per second.
+	 */
+	private static double updatesPerSecond(int numThreads, boolean striped, long millis) throws InterruptedException {
+		StripedAccumulator stats = new StripedAccumulator(striped ? numThreads : 1, NUM_POS);
+		long endTime = System.currentTimeMillis() + millis;
+		Thread[] threads = new Thread[numThreads];
+		for (int t = 0; t < numThreads; t++) {
+			final int STRIPE = t;
+			threads[t] = new Thread(() -> {
+				Random random = new Random(STRIPE);
+				while (System.currentTimeMillis() < endTime)
+					for (int i = 0; i < 1000; i++)
+						stats.add(STRIPE, random.nextInt(NUM_POS), random.nextInt(200));
+			});
+		}
+		long startTime = System.currentTimeMillis();
+		for (Thread thread : threads)
+			thread.start();
+		for (Thread thread : threads)
+			thread.join();
+		return stats.getTotalCount() * 1000.0 / (System.currentTimeMillis() - startTime);
+	}
+
+	/**
+	 * Report accumulator update and parallel simulation throughput at 1 to 64 threads.
+	 * @param args optional measurement milliseconds (default 2000)
+	 * @throws InterruptedException if interrupted while waiting for the benchmark threads
+	 */
+	public static void main(String[] args) throws InterruptedException {
+		long millis = args.length > 0 ? Long.parseLong(args[0]) : 2000L;
+		System.out.printf("%d available processors\n", Runtime.getRuntime().availableProcessors());
+		updatesPerSecond(THREAD_COUNTS[THREAD_COUNTS.length - 1], true, millis / 2); // warm up
+		updatesPerSecond(THREAD_COUNTS[THREAD_COUNTS.length - 1], false, millis / 2);
+		System.out.printf("%8s %16s %16s %18s\n", "Threads", "Striped upd/sec", "Shared upd/sec", "Simulations/sec");
+		PokerSquaresPointSystem system = PokerSquaresPointSystem.getBritishPointSystem();
+		for (int numThreads : THREAD_COUNTS) {
+			double striped = updatesPerSecond(numThreads, true, millis);
+			double shared = updatesPerSecond(numThreads, false, millis);
+			GreedyMCPlayer player = new GreedyMCPlayer(NUM_POS);
+			player.setRolloutThreads(numThreads, GreedyRolloutPolicy::new);
+			player.setEarlyStopZ(Double.POSITIVE_INFINITY); // the same mix of plays as in a full game
+			LegalPlayListBenchmark.simulationsPerSecond(player, system, millis / 2, 0L); // warm up
+			double simulations = LegalPlayListBenchmark.simulationsPerSecond(player, system, millis, 1L);
+			player.setRolloutThreads(0, GreedyRolloutPolicy::new);
+			System.out.printf("%8d %16.0f %16.0f %18.0f\n", numThreads, striped, shared, simulations);
+		}
+	}
+}
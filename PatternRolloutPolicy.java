@@ -0,0 +1,99 @@
+import java.util.Random;
+
+/**
+ * PatternRolloutPolicy - a greedy rollout policy with a flush draw tie-break.  Like GreedyRolloutPolicy, it ranks
+ * each candidate position by the change in the scores of its row and column, and so makes the same score-greedy
+ * choices.  Among placements of equal immediate score it prefers extending single-suit lines (flush draws), weighted
+ * by how much a flush is worth over a high card in the current point system; remaining ties are broken randomly.
+ * The tie-break costs a copy of the row and column hands and a scan of each per candidate, on top of the greedy
+ * policy's hand evaluations.
+ */
+public class PatternRolloutPolicy implements RolloutPolicy {
+
+	private static final int SIZE = PokerSquares.SIZE; // number of rows/columns in square grid
+	private HandEvaluator evaluator; // scorer specialized to the point system
+	private int flushGain; // score of a flush over a high card in the current point system
+	private int scoreWeight; // weight of a point of immediate score change, above any total flush draw term
+	private Card[] rowHand = new Card[SIZE]; // reusable row hand
+	private Card[] colHand = new Card[SIZE]; // reusable column hand
+	private int[] bestPlays = new int[SIZE * SIZE]; // reusable list of plays tied for the best value
+
+	/* (non-Javadoc)
+	 * @see RolloutPolicy#setPointSystem(PokerSquaresPointSystem)
+	 */
+	@Override
+	public void setPointSystem(PokerSquaresPointSystem system) {
+		evaluator = system.getEvaluator();
+		flushGain = evaluator.flush - evaluator.highCard;
+		// the flush draw terms of a row and a column are each within +-(SIZE - 1) * |flushGain|
+		scoreWeight = 2 * (SIZE - 1) * Math.abs(flushGain) + 1;
+	}
+
+	/* (non-Javadoc)
+	 * @see RolloutPolicy#choosePlay(Card, Card[][], int, Random)
+	 */
+	@Override
+	public int choosePlay(Card card, Card[][] grid, int legalPlays, Random random) {
+		int maxValue = Integer.MIN_VALUE;
+		int numBest = 0;
+		for (int plays = legalPlays; plays != 0; plays &= plays - 1) {
+			int play = Integer.numberOfTrailingZeros(plays);
+			int row = play / SIZE, col = play % SIZE;
+			for (int j = 0; j < SIZE; j++) {
+				rowHand[j] = grid[row][j];
+				colHand[j] = grid[j][col];
+			}
+			int before = evaluator.getHandScore(rowHand) + evaluator.getHandScore(colHand);
+			rowHand[col] = card;
+			colHand[row] = card;
+			int after = evaluator.getHandScore(rowHand) + evaluator.getHandScore(colHand);
+			// immediate score change dominates; the flush draw term only separates equal-scoring placements
+			int value = (after - before) * scoreWeight + flushDrawDelta(rowHand, col, card) + flushDrawDelta(colHand, row, card);
+			if (value >= maxValue) {
+				if (value > maxValue)
+					numBest = 0;
+				bestPlays[numBest++] = play;
+				maxValue = value;
+			}
+		}
+		return bestPlays[random.nextInt(numBest)];
+	}
+
+	/**
+	 * Return the change of the flush draw value of a line when the card is placed at the given index.
+	 * A line holding n cards of a single suit has flush draw value flushGain * n; any other line has none.
+	 */
+	private int flushDrawDelta(Card[] hand, int index, Card card) {
+		for (int j = 0; j < SIZE; j++) {
+			if (j == index || hand[j] == null)
+				continue;
+			if (hand[j].getSuit() != card.getSuit()) { // the line holds a card of another suit
+				int suit = hand[j].getSuit();
+				for (int k = 0; k < SIZE; k++)
+					if (k != index && hand[k] != null && hand[k].getSuit() != suit)
+						return 0; // no flush draw before or after
+				return -flushGain * (SIZE - 1 - countEmpty(hand, index)); // placement breaks a flush draw
+			}
+		}
+		return flushGain; // placement extends a flush draw (or starts one) by one card
+	}
+
+	/**
+	 * Return the number of empty positions of the line other than the given index.
+	 */
+	private int countEmpty(Card[] hand, int index) {
+		int empty = 0;
+		for (int j = 0; j < SIZE; j++)
+			if (j != index && hand[j] == null)
+				empty++;
+		return empty;
+	}
+
+	/* (non-Javadoc)
+	 * @see RolloutPolicy#getName()
+	 */
+	@Override
+	public String getName() {
+		return "Pattern";
+	}
+}
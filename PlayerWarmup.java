@@ -0,0 +1,90 @@
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * PlayerWarmup - warms up a player's class before its first game, within the time setPointSystem is given, so that
+ * the first getPlay calls do not run interpreted (and load classes) while the game clock is running.
+ *
+ * A throwaway player of the same class plays short games on a fresh deal, which loads the game classes (PokerHand,
+ * Card, the point system's HandEvaluator) and lets the JIT compile the scoring and rollout hot paths.  Compiled code
+ * belongs to the class rather than the instance, so the player actually used keeps its own state, including its
+ * pseudorandom number generator, and seeded play is unchanged.  Each class is warmed up once per JVM, with at most
+ * half the point system time (and at most MAX_MILLIS).
+ *
+ * Class loading can further be moved out of the JVM's start with a Class Data Sharing archive of the game classes
+ * (JDK 13 or later), dumped at the end of a warm-up run and mapped at the start of later runs:
+ *
+ *   java -XX:ArchiveClassesAtExit=pokersquares.jsa PlayerWarmup warm
+ *   java -XX:SharedArchiveFile=pokersquares.jsa PokerSquares
+ *
+ * (From JDK 24, -XX:AOTCacheOutput=pokersquares.aot and -XX:AOTCache=pokersquares.aot also keep loaded and linked
+ * classes and profiles.)  The main method measures the first-move simulation rate with and without warm-up, to be
+ * run in a fresh JVM for each.
+ */
+public class PlayerWarmup {
+
+	public static final long MAX_MILLIS = 3000L; // maximum milliseconds of warm-up per class
+	private static final long GAME_MILLIS = 250L; // milliseconds per warm-up game
+	private static final int NUM_POS = PokerSquares.SIZE * PokerSquares.SIZE; // number of positions in square grid
+	private static final Set<Class<?>> warmed = ConcurrentHashMap.newKeySet(); // player classes already warmed up
+
+	/**
+	 * Warm up the class of the players the factory creates, unless it has already been warmed up in this JVM, by
+	 * playing games with one of them until half the given point system time (at most MAX_MILLIS) has passed.  The
+	 * throwaway player is given the point system with no time, and so does not warm up in turn.
+	 * @param playerFactory creates a throwaway player of the class to warm up
+	 * @param system point system
+	 * @param millis milliseconds the point system is being processed within
+	 * @return number of warm-up games played
+	 */
+	public static int warmUp(Supplier<? extends PokerSquaresPlayer> playerFactory, PokerSquaresPointSystem system, long millis) {
+		if (millis <= 0)
+			return 0;
+		long endTime = System.currentTimeMillis() + Math.min(millis / 2, MAX_MILLIS);
+		PokerSquaresPlayer player = playerFactory.get();
+		if (!warmed.add(player.getClass()))
+			return 0;
+		player.setPointSystem(system, 0);
+		Random random = new Random(0);
+		Card[] deck = Card.getAllCards();
+		int numGames = 0;
+		while (System.currentTimeMillis() < endTime) {
+			long gameMillis = Math.min(GAME_MILLIS, endTime - System.currentTimeMillis());
+			player.init();
+			for (int i = 0; i < NUM_POS; i++) {
+				int c = i + random.nextInt(deck.length - i);
+				Card card = deck[c];
+				deck[c] = deck[i];
+				deck[i] = card;
+				player.getPlay(card, Math.max(gameMillis * (NUM_POS - i) / NUM_POS, 1));
+			}
+			numGames++;
+		}
+		return numGames;
+	}
+
+	/**
+	 * Print the first-move MC simulation rate of a GreedyMCPlayer (full depth) in this JVM, with or without warm-up in
+	 * setPointSystem.
+	 * @param args "warm" or "cold" (default), then optional first-move milliseconds (default 100)
+	 */
+	public static void main(String[] args) {
+		boolean warm = args.length > 0 && args[0].equals("warm");
+		long moveMillis = args.length > 1 ? Long.parseLong(args[1]) : 100L;
+		long startTime = System.currentTimeMillis();
+		PokerSquaresPointSystem system = PokerSquaresPointSystem.getBritishPointSystem();
+		GreedyMCPlayer player = new GreedyMCPlayer(NUM_POS);
+		player.setWarmup(warm);
+		player.setPointSystem(system, PokerSquares.POINT_SYSTEM_MILLIS);
+		long setupMillis = System.currentTimeMillis() - startTime;
+		player.init();
+		Card card = Card.getAllCards()[new Random(0).nextInt(Card.NUM_CARDS)];
+		long moveStart = System.currentTimeMillis();
+		player.getPlay(card, moveMillis * NUM_POS);
+		long elapsed = System.currentTimeMillis() - moveStart;
+		System.out.printf("%s: setPointSystem %d ms, first move %d simulations in %d ms (%.0f/sec)\n", warm ? "warm" : "cold",
+				setupMillis, player.getSimulationCount(), elapsed, player.getSimulationCount() * 1000.0 / elapsed);
+	}
+}
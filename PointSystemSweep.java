@@ -0,0 +1,187 @@
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * PointSystemSweep - evaluates players across many generated point systems with short game budgets, to see how
+ * robust they are to the point system rather than how well they play the British one.
+ *
+ * Point systems are drawn in turn from the random, hypercorner, Ameritish and single-hand generators.  Worker
+ * threads take point systems from a shared counter; each worker creates its own players once and keeps them for
+ * the whole sweep, so that players stay JIT-warm and keep any state that survives setPointSystem, and each point
+ * system is prepared once per player (one PokerSquares game, one setPointSystem call) for all of its games.  For
+ * each point system, player totals are normalized as in PokerSquares.playTournament; the report gives one compact
+ * line per point system and, per player, the mean normalized score, the mean game score and the number of point
+ * systems won.  Point systems on which all players tie are left out of the normalized mean.
+ */
+public class PointSystemSweep {
+
+	private static final String[] KINDS = {"random", "hypercorner", "ameritish", "single"}; // generator names
+
+	private final List<Supplier<? extends PokerSquaresPlayer>> playerFactories; // create each worker's players
+	private final int numThreads; // number of worker threads
+	private int gamesPerSystem = 1; // games per player per point system
+	private long gameMillis = 1000L; // maximum milliseconds per game
+	private long startSeed = 0L; // seed of the first game under each point system
+	private boolean verbose = true; // whether to print one line per point system
+
+	/**
+	 * Create a sweep of the given players.
+	 * @param playerFactories one factory per player, called once by each worker thread
+	 * @param numThreads number of worker threads
+	 */
+	public PointSystemSweep(List<Supplier<? extends PokerSquaresPlayer>> playerFactories, int numThreads) {
+		this.playerFactories = playerFactories;
+		this.numThreads = numThreads;
+	}
+
+	public void setGamesPerSystem(int gamesPerSystem) {
+		this.gamesPerSystem = gamesPerSystem;
+	}
+
+	public void setGameMillis(long gameMillis) {
+		this.gameMillis = gameMillis;
+	}
+
+	public void setStartSeed(long startSeed) {
+		this.startSeed = startSeed;
+	}
+
+	public void setVerbose(boolean verbose) {
+		this.verbose = verbose;
+	}
+
+	/**
+	 * Generate point systems, cycling through the random, hypercorner, Ameritish and single-hand generators.
+	 * @param numSystems number of point systems
+	 * @param seed seed of the point system generators
+	 * @return generated point systems
+	 */
+	public static List<PokerSquaresPointSystem> generateSystems(int numSystems, long seed) {
+		PokerSquaresPointSystem.setSeed(seed);
+		List<PokerSquaresPointSystem> systems = new ArrayList<PokerSquaresPointSystem>();
+		for (int i = 0; i < numSystems; i++) {
+			switch (i % KINDS.length) {
+			case 0: systems.add(PokerSquaresPointSystem.getRandomPointSystem()); break;
+			case 1: systems.add(PokerSquaresPointSystem.getHypercornerPointSystem()); break;
+			case 2: systems.add(PokerSquaresPointSystem.getAmeritishPointSystem()); break;
+			default: systems.add(PokerSquaresPointSystem.getSingleHandPointSystem());
+			}
+		}
+		return systems;
+	}
+
+	/**
+	 * Run the sweep and report per-system and aggregate results.
+	 * @param systems point systems (as from generateSystems, for the kind column of the report)
+	 * @return total game score of each player under each point system, indexed by point system, then player
+	 * @throws InterruptedException if interrupted while waiting for the workers
+	 */
+	public long[][] run(List<PokerSquaresPointSystem> systems) throws InterruptedException {
+		int numPlayers = playerFactories.size();
+		long[][] totals = new long[systems.size()][numPlayers];
+		String[] names = new String[numPlayers];
+		AtomicInteger nextSystem = new AtomicInteger();
+		long startTime = System.currentTimeMillis();
+		Thread[] threads = new Thread[numThreads];
+		for (int t = 0; t < numThreads; t++) {
+			final boolean first = t == 0;
+			threads[t] = new Thread(() -> {
+				PokerSquaresPlayer[] players = new PokerSquaresPlayer[numPlayers];
+				for (int p = 0; p < numPlayers; p++) {
+					players[p] = playerFactories.get(p).get();
+					if (first)
+						names[p] = players[p].getName();
+				}
+				for (int s; (s = nextSystem.getAndIncrement()) < systems.size(); ) {
+					for (int p = 0; p < numPlayers; p++) {
+						PokerSquares game = new PokerSquares(players[p], systems.get(s));
+						game.setVerbose(false);
+						game.setGameMillis(gameMillis);
+						for (int g = 0; g < gamesPerSystem; g++) {
+							game.setSeed(startSeed + g);
+							totals[s][p] += game.play();
+						}
+					}
+				}
+			}, "sweep-" + t);
+			threads[t].start();
+		}
+		for (Thread thread : threads)
+			thread.join();
+		long elapsed = System.currentTimeMillis() - startTime;
+		report(systems, names, totals, elapsed);
+		return totals;
+	}
+
+	/**
+	 * Print a line per point system (if verbose) and the aggregate table.
+	 */
+	private void report(List<PokerSquaresPointSystem> systems, String[] names, long[][] totals, long elapsed) {
+		int numPlayers = names.length;
+		double[] normalizedSums = new double[numPlayers];
+		long[] scoreSums = new long[numPlayers];
+		int[] wins = new int[numPlayers];
+		int numTies = 0;
+		if (verbose) {
+			System.out.printf("%5s %-11s %-50s", "#", "Kind", "Scores (HC 1P 2P 3K S F FH 4K SF RF)");
+			for (String name : names)
+				System.out.printf(" %12.12s", name);
+			System.out.println();
+		}
+		for (int s = 0; s < systems.size(); s++) {
+			int[] systemTotals = new int[numPlayers];
+			for (int p = 0; p < numPlayers; p++) {
+				systemTotals[p] = (int) totals[s][p];
+				scoreSums[p] += totals[s][p];
+			}
+			double[] normalized = PokerSquares.normalizeTotalScores(systemTotals);
+			if (Double.isNaN(normalized[0]))
+				numTies++;
+			else
+				for (int p = 0; p < numPlayers; p++) {
+					normalizedSums[p] += normalized[p];
+					if (normalized[p] == 1)
+						wins[p]++;
+				}
+			if (verbose) {
+				StringBuilder table = new StringBuilder();
+				for (int score : systems.get(s).getScoreTable())
+					table.append(String.format("%5d", score));
+				System.out.printf("%5d %-11s %-50s", s, KINDS[s % KINDS.length], table);
+				for (int p = 0; p < numPlayers; p++)
+					System.out.printf(" %12.2f", (double) totals[s][p] / gamesPerSystem);
+				System.out.println();
+			}
+		}
+		int numDecided = systems.size() - numTies;
+		System.out.printf("%d point systems (%d tied), %d games each, %d ms per game, %d threads, %.1f s\n", systems.size(),
+				numTies, gamesPerSystem, gameMillis, numThreads, elapsed / 1000.0);
+		System.out.printf("%20s %15s %15s %6s\n", "Player", "Mean Normalized", "Mean Score", "Wins");
+		for (int p = 0; p < numPlayers; p++)
+			System.out.printf("%20s %15.4f %15.2f %6d\n", names[p], numDecided == 0 ? Double.NaN : normalizedSums[p] / numDecided,
+					(double) scoreSums[p] / ((long) systems.size() * gamesPerSystem), wins[p]);
+	}
+
+	/**
+	 * Sweep the random, flush and MCTS players across generated point systems.
+	 * @param args optional number of point systems (default 100), games per point system (default 1), milliseconds per
+	 * game (default 250) and number of threads (default: available processors)
+	 * @throws InterruptedException if interrupted while waiting for the workers
+	 */
+	public static void main(String[] args) throws InterruptedException {
+		int numSystems = args.length > 0 ? Integer.parseInt(args[0]) : 100;
+		int gamesPerSystem = args.length > 1 ? Integer.parseInt(args[1]) : 1;
+		long gameMillis = args.length > 2 ? Long.parseLong(args[2]) : 250L;
+		int numThreads = args.length > 3 ? Integer.parseInt(args[3]) : Runtime.getRuntime().availableProcessors();
+		List<Supplier<? extends PokerSquaresPlayer>> players = new ArrayList<Supplier<? extends PokerSquaresPlayer>>();
+		players.add(RandomPlayer::new);
+		players.add(FlushPlayer::new);
+		players.add(MCTSPlayer::new);
+		PointSystemSweep sweep = new PointSystemSweep(players, numThreads);
+		sweep.setGamesPerSystem(gamesPerSystem);
+		sweep.setGameMillis(gameMillis);
+		sweep.run(generateSystems(numSystems, 0L));
+	}
+}
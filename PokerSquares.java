@@ -1,6 +1,8 @@
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
 import java.util.Random;
 import java.util.Scanner;
 import java.util.Stack;
@@ -54,6 +56,8 @@ public class PokerSquares {
 	private Card[][] grid = new Card[SIZE][SIZE]; // current game grid
 	private Random random = new Random(); // current game random number generator
 	private int minPoints; // minimum possible score for current point system.
+	private GameRecord gameRecord; // if non-null, each play of the current game is recorded here
+	private TranscriptWriter transcript = null; // destination of verbose transcripts, or null for System.out (created on first use)
 
 	/**
 	 * Create a PokerSquares game with a given player and point system.
@@ -61,8 +65,22 @@ public class PokerSquares {
 	 * @param system current Poker Squares point system
 	 */
 	public PokerSquares(PokerSquaresPlayer player, PokerSquaresPointSystem system) {
+		this(player, system, GAME_MILLIS, POINT_SYSTEM_MILLIS);
+	}
+
+	/**
+	 * Create a PokerSquares game with a given player, point system and time control.  Scaled-down budgets keep the
+	 * standard timeout semantics: the player is given pointSystemMillis to process the point system, and exceeding
+	 * gameMillis of thinking time over a game loses it with 10 times the minimum hand score.
+	 * @param player Poker Squares player object
+	 * @param system current Poker Squares point system
+	 * @param gameMillis maximum milliseconds per game
+	 * @param pointSystemMillis maximum milliseconds for the player to process the point system
+	 */
+	public PokerSquares(PokerSquaresPlayer player, PokerSquaresPointSystem system, long gameMillis, long pointSystemMillis) {
 		this.player = player;
 		this.system = system;
+		this.gameMillis = gameMillis;
 		minPoints = Integer.MAX_VALUE;
 		for (int points : system.getScoreTable())
 			if (points < minPoints)
@@ -73,12 +91,12 @@ public class PokerSquares {
 		Thread thread = new Thread(new Runnable() {
 			@Override
 			public void run() {
-				PLAYER.setPointSystem(SYSTEM, POINT_SYSTEM_MILLIS);
+				PLAYER.setPointSystem(SYSTEM, pointSystemMillis);
 			}
 		});
 		thread.start();
 		try {
-			thread.join(POINT_SYSTEM_MILLIS);
+			thread.join(pointSystemMillis);
 		} catch (InterruptedException e) {
 			e.printStackTrace();
 		}
@@ -89,8 +107,21 @@ public class PokerSquares {
 	 * @return final game score
 	 */
 	public int play() {
+		int score = playGame();
+		if (gameRecord != null)
+			gameRecord.setScore(score);
+		return score;
+	}
+
+	/**
+	 * Play a game of Poker Squares, recording plays if a game record is set, and return the final game score.
+	 * @return final game score
+	 */
+	private int playGame() {
 		try {
 			player.init();
+			if (gameRecord != null)
+				gameRecord.clear();
 
 			// shuffle deck
 			Stack<Card> deck = new Stack<Card>();
@@ -121,10 +152,10 @@ public class PokerSquares {
 				}
 				grid[play[0]][play[1]] = card;
 				cardsPlaced++;
-				if (verbose) {
-					system.printGrid(grid);
-					System.out.println();
-				}
+				if (gameRecord != null)
+					gameRecord.addPlay(card, play[0], play[1]);
+				if (verbose)
+					getTranscript().appendGrid(system, grid).append("\n");
 			}
 			return system.getScore(grid);
 		}
@@ -133,6 +164,10 @@ public class PokerSquares {
 			e.printStackTrace();
 			return minPoints;
 		}
+		finally {
+			if (verbose)
+				getTranscript().flush(false); // the transcript of each game is written at its end
+		}
 	}
 
 
@@ -144,6 +179,33 @@ public class PokerSquares {
 	 * @return integer array of game scores
 	 */
 	public int[] playSequence(int numGames, long startSeed, boolean verbose) {
+		return playSequence(numGames, startSeed, verbose, null);
+	}
+
+	/**
+	 * Play a sequence of games, collecting and reporting statistics, skipping games already in the given checkpoint
+	 * log and logging each game played, with the player's name as its id in the log.
+	 * @param numGames number of games to play
+	 * @param startSeed seed of first game. Successive games use successive seeds
+	 * @param verbose whether or not to provide verbose output of game play
+	 * @param log checkpoint log of completed games, or null
+	 * @return integer array of game scores
+	 */
+	public int[] playSequence(int numGames, long startSeed, boolean verbose, CheckpointLog log) {
+		return playSequence(numGames, startSeed, verbose, log, player.getName());
+	}
+
+	/**
+	 * Play a sequence of games, collecting and reporting statistics, skipping games already in the given checkpoint
+	 * log and logging each game played.
+	 * @param numGames number of games to play
+	 * @param startSeed seed of first game. Successive games use successive seeds
+	 * @param verbose whether or not to provide verbose output of game play
+	 * @param log checkpoint log of completed games, or null
+	 * @param playerId id of the player in the log, unique among the players logged to it
+	 * @return integer array of game scores
+	 */
+	public int[] playSequence(int numGames, long startSeed, boolean verbose, CheckpointLog log, String playerId) {
 		this.verbose = verbose;
 		if (verbose) {
 			System.out.printf("%d games starting at seed %d\nPoint system:\n%s\n", numGames, startSeed, system);
@@ -152,8 +214,16 @@ public class PokerSquares {
 		double scoreMean = 0;
 		int min = Integer.MAX_VALUE, max = Integer.MIN_VALUE;
 		for (int i = 0; i < numGames; i++) {
-			setSeed(startSeed + i);
-			int score = play();
+			Integer logged = log == null ? null : log.getScore(system, playerId, startSeed + i);
+			int score;
+			if (logged != null)
+				score = logged;
+			else {
+				setSeed(startSeed + i);
+				score = play();
+				if (log != null)
+					log.record(system, playerId, startSeed + i, score);
+			}
 			scores[i] = score;
 			scoreMean += score;
 			if (scores[i] < min) min = scores[i];
@@ -190,6 +260,69 @@ public class PokerSquares {
 			ArrayList<PokerSquaresPlayer> players,
 			ArrayList<PokerSquaresPointSystem> systems,
 			int gamesPerSystem, long startSeed) {
+		return playTournament(players, systems, gamesPerSystem, startSeed, null);
+	}
+
+	/**
+	 * Hold a Poker Squares tournament as above, skipping games already in the given checkpoint log and logging each
+	 * game played, so that an interrupted tournament resumes where it stopped.  A player whose games under a point
+	 * system are all logged is not given that point system again.
+	 * @param players Poker Squares players taking part in the tournament
+	 * @param systems Poker Squares point systems used to evaluate players in the tournament
+	 * @param gamesPerSystem the number of games that will be played by each player with each point system
+	 * @param startSeed the start seed for the pseudorandom number generator that generates card deals
+	 * @param log checkpoint log of completed games, or null
+	 * @return the sum of the tournament scores for each of the given players
+	 */
+	public static double[] playTournament(
+			ArrayList<PokerSquaresPlayer> players,
+			ArrayList<PokerSquaresPointSystem> systems,
+			int gamesPerSystem, long startSeed, CheckpointLog log) {
+		return playTournament(players, systems, gamesPerSystem, startSeed, log, TimeControl.STANDARD);
+	}
+
+	/**
+	 * Hold a Poker Squares tournament as above under the given time control, e.g. with scaled-down budgets for quick
+	 * evaluations.  Since scores depend on the time control, a checkpoint log should hold games of one time control.
+	 * Players are identified in the log by name.
+	 * @param players Poker Squares players taking part in the tournament
+	 * @param systems Poker Squares point systems used to evaluate players in the tournament
+	 * @param gamesPerSystem the number of games that will be played by each player with each point system
+	 * @param startSeed the start seed for the pseudorandom number generator that generates card deals
+	 * @param log checkpoint log of completed games, or null
+	 * @param timeControl game and point system time budgets
+	 * @return the sum of the tournament scores for each of the given players
+	 * @throws IllegalArgumentException if a log is given and two players have the same name
+	 */
+	public static double[] playTournament(
+			ArrayList<PokerSquaresPlayer> players,
+			ArrayList<PokerSquaresPointSystem> systems,
+			int gamesPerSystem, long startSeed, CheckpointLog log, TimeControl timeControl) {
+		List<String> playerIds = new ArrayList<String>();
+		for (PokerSquaresPlayer player : players)
+			playerIds.add(player.getName());
+		return playTournament(players, playerIds, systems, gamesPerSystem, startSeed, log, timeControl);
+	}
+
+	/**
+	 * Hold a Poker Squares tournament as above, identifying the players in the checkpoint log by the given ids.
+	 * @param players Poker Squares players taking part in the tournament
+	 * @param playerIds ids of the players in the log, in the same order
+	 * @param systems Poker Squares point systems used to evaluate players in the tournament
+	 * @param gamesPerSystem the number of games that will be played by each player with each point system
+	 * @param startSeed the start seed for the pseudorandom number generator that generates card deals
+	 * @param log checkpoint log of completed games, or null
+	 * @param timeControl game and point system time budgets
+	 * @return the sum of the tournament scores for each of the given players
+	 * @throws IllegalArgumentException if a log is given and the player ids are not unique (or not one per player),
+	 * as the games of one player would be credited to another
+	 */
+	public static double[] playTournament(
+			ArrayList<PokerSquaresPlayer> players, List<String> playerIds,
+			ArrayList<PokerSquaresPointSystem> systems,
+			int gamesPerSystem, long startSeed, CheckpointLog log, TimeControl timeControl) {
+		if (log != null && (playerIds.size() != players.size() || new HashSet<String>(playerIds).size() != playerIds.size()))
+			throw new IllegalArgumentException("Checkpointed players need unique ids: " + playerIds);
 		double[] tournamentScores = new double[players.size()];
 		for (PokerSquaresPointSystem system : systems) { // for each point system
 			System.out.println("Point System:\n" + system);
@@ -197,23 +330,18 @@ public class PokerSquares {
 			for (int i = 0; i < players.size(); i++) { // for each player
 				PokerSquaresPlayer player = players.get(i);
 				System.out.printf("Player: \"%s\"\n", player.getName());
-				int[] scores = new PokerSquares(player, system).playSequence(gamesPerSystem, startSeed, false);
+				String playerId = log == null ? player.getName() : playerIds.get(i);
+				int[] scores = log == null ? null : log.getScores(system, playerId, startSeed, gamesPerSystem);
+				if (scores == null)
+					scores = timeControl.newGame(player, system).playSequence(gamesPerSystem, startSeed, false, log, playerId);
 				for (int score : scores)
 					totalScores[i] += score;
 				System.out.printf("Player \"%s\" total score: %d\n", player.getName(), totalScores[i]);
 			}
-			int maxTotal = Integer.MIN_VALUE;
-			int minTotal = Integer.MAX_VALUE;
-			for (int totalScore : totalScores) {
-				if (totalScore > maxTotal)
-					maxTotal = totalScore;
-				if (totalScore < minTotal)
-					minTotal = totalScore;				
-			}
+			double[] normalizedTotals = normalizeTotalScores(totalScores);
 			for (int i = 0; i < players.size(); i++) { // for each player
-				double normalizedTotal = (double) (totalScores[i] - minTotal) / (maxTotal - minTotal);
-				System.out.println("Player \"" + players.get(i).getName() + "\" normalized score: " + normalizedTotal);
-				tournamentScores[i] += normalizedTotal;
+				System.out.println("Player \"" + players.get(i).getName() + "\" normalized score: " + normalizedTotals[i]);
+				tournamentScores[i] += normalizedTotals[i];
 			}
 		}
 		double max = Double.NEGATIVE_INFINITY;
@@ -229,14 +357,76 @@ public class PokerSquares {
 		return tournamentScores;
 	}
 
+	/**
+	 * Normalize the total scores of the players of a tournament under one point system, linearly scaling and
+	 * transforming them such that the players with the maximum and minimum total receive 1.0 and 0.0 respectively.
+	 * Summing these over all point systems gives the tournament scores of playTournament.
+	 * @param totalScores total game score of each player under the point system
+	 * @return normalized score of each player under the point system
+	 */
+	public static double[] normalizeTotalScores(int[] totalScores) {
+		int maxTotal = Integer.MIN_VALUE;
+		int minTotal = Integer.MAX_VALUE;
+		for (int totalScore : totalScores) {
+			if (totalScore > maxTotal)
+				maxTotal = totalScore;
+			if (totalScore < minTotal)
+				minTotal = totalScore;
+		}
+		double[] normalizedTotals = new double[totalScores.length];
+		for (int i = 0; i < totalScores.length; i++)
+			normalizedTotals[i] = (double) (totalScores[i] - minTotal) / (maxTotal - minTotal);
+		return normalizedTotals;
+	}
+
 	/**
 	 * Set the seed of the game pseudorandom number generator.
 	 * @param seed pseudorandom number generator seed
 	 */
-	private void setSeed(long seed) {
+	public void setSeed(long seed) {
 		random.setSeed(seed);
 	}
 
+	/**
+	 * Set the maximum milliseconds of subsequent games (GAME_MILLIS by default), e.g. for short-budget evaluations.
+	 * @param gameMillis maximum milliseconds per game
+	 */
+	public void setGameMillis(long gameMillis) {
+		this.gameMillis = gameMillis;
+	}
+
+	/**
+	 * Set whether or not to print a move-by-move transcript of the game.
+	 * @param verbose whether or not to print a move-by-move transcript of the game
+	 */
+	public void setVerbose(boolean verbose) {
+		this.verbose = verbose;
+	}
+
+	/**
+	 * Set the writer of subsequent verbose transcripts, e.g. an asynchronous TranscriptWriter to a file for verbose
+	 * batch runs.  By default, transcripts are written synchronously to System.out at the end of each game, in order
+	 * with other printing.
+	 * @param transcript transcript writer
+	 */
+	public void setTranscript(TranscriptWriter transcript) {
+		this.transcript = transcript;
+	}
+
+	private TranscriptWriter getTranscript() {
+		if (transcript == null)
+			transcript = new TranscriptWriter(System.out, false);
+		return transcript;
+	}
+
+	/**
+	 * Set the record that subsequent games will be recorded into, or null to stop recording.
+	 * @param gameRecord record of the plays and score of each subsequent game
+	 */
+	public void setGameRecord(GameRecord gameRecord) {
+		this.gameRecord = gameRecord;
+	}
+
 
 	/**
 	 * Demonstrate single/batch game play testing and tournament evaluation of PokerSquaresPlayers.
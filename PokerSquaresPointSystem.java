@@ -1,7 +1,13 @@
+import java.util.Arrays;
 import java.util.Random;
 
 
 /**
+ * Point systems are immutable values: equal score tables make equal point systems with equal hash codes, so point
+ * systems can key caches and be shared between threads freely.  Each holds a HandEvaluator specialized to it,
+ * shared by all its users.  The generators that use the shared static pseudorandom number generator are
+ * synchronized; each also has an overload taking a caller's own Random for concurrent or reproducible generation.
+ *
  * @author tneller
  *
  */
@@ -11,17 +17,21 @@ public class PokerSquaresPointSystem {
 	private static final int MIN_HAND_SCORE = -128; // maximum permissible hand score
 	private static final int SIZE = PokerSquares.SIZE; // Poker Squares number of rows/columns
 	private final int[] scores; // scores for each corresponding hand classification id number
+	private final int hashCode; // hash code of the score table
+	private final HandEvaluator evaluator; // scorer specialized to this point system
 	
 	/**
 	 * Create a point system given an array of hand scores. The score at index n corresponds to the score for 
 	 * hand classification number n.  These will be truncated to be between the minimum and maximum allowable 
-	 * hand scores.
+	 * hand scores.  The given array is copied, not kept.
 	 * @param scores given hand scores
 	 */
 	public PokerSquaresPointSystem(int[] scores) {
-		for (int i = 0; i < scores.length; i++)
-			scores[i] = Math.max(MIN_HAND_SCORE, Math.min(MAX_HAND_SCORE, scores[i]));
-		this.scores = scores;
+		this.scores = scores.clone();
+		for (int i = 0; i < this.scores.length; i++)
+			this.scores[i] = Math.max(MIN_HAND_SCORE, Math.min(MAX_HAND_SCORE, this.scores[i]));
+		hashCode = Arrays.hashCode(this.scores);
+		evaluator = new HandEvaluator(this);
 	}
 	
 	/**
@@ -30,7 +40,7 @@ public class PokerSquaresPointSystem {
 	 * @return score of given Card hand.
 	 */
 	public int getHandScore(Card[] hand) {
-		return scores[PokerHand.getPokerHandId(hand)];
+		return evaluator.getHandScore(hand);
 	}
 	
 	/**
@@ -59,17 +69,22 @@ public class PokerSquaresPointSystem {
 		return scores.clone();
 	}
 	
+	/**
+	 * Get the shared evaluator specialized to this point system, a fast, allocation-free alternative to
+	 * getHandScore(Card[]) and getScore(Card[][]) with the hand class scores as fields.
+	 * @return evaluator specialized to this point system
+	 */
+	public HandEvaluator getEvaluator() {
+		return evaluator;
+	}
+	
 	/**
 	 * Get the score of the given Card grid.
 	 * @param grid Card grid
 	 * @return score of given Card grid
 	 */
 	public int getScore(Card[][] grid) {
-		int[] handScores = getHandScores(grid);
-		int totalScore = 0;
-		for (int handScore : handScores)
-			totalScore += handScore;
-		return totalScore;
+		return evaluator.getScore(grid);
 	}
 	
 	/**
@@ -98,7 +113,7 @@ public class PokerSquaresPointSystem {
 	 * Set the seed of the game pseudorandom number generator.
 	 * @param seed pseudorandom number generator seed
 	 */
-	public static void setSeed(long seed) {
+	public static synchronized void setSeed(long seed) {
 		random.setSeed(seed);
 	}
 	
@@ -106,7 +121,16 @@ public class PokerSquaresPointSystem {
 	 * Return a random point system with scores uniformly distributed across the range of all allowable values.
 	 * @return a random point system with scores uniformly distributed across the range of all allowable values
 	 */
-	public static PokerSquaresPointSystem getRandomPointSystem() {
+	public static synchronized PokerSquaresPointSystem getRandomPointSystem() {
+		return getRandomPointSystem(random);
+	}
+	
+	/**
+	 * Return a random point system with scores uniformly distributed across the range of all allowable values.
+	 * @param random pseudorandom number generator
+	 * @return a random point system with scores uniformly distributed across the range of all allowable values
+	 */
+	public static PokerSquaresPointSystem getRandomPointSystem(Random random) {
 		int[] scores = new int[PokerHand.NUM_HANDS];
 		for (int i = 0; i < PokerHand.NUM_HANDS; i++)
 			scores[i] = random.nextInt(MAX_HAND_SCORE - MIN_HAND_SCORE + 1) + MIN_HAND_SCORE;
@@ -117,7 +141,16 @@ public class PokerSquaresPointSystem {
 	 * Return a random hypercorner point system where hand scores are either -1 or 1 with equal probability.
 	 * @return a random hypercorner point system where hand scores are either -1 or 1 with equal probability
 	 */
-	public static PokerSquaresPointSystem getHypercornerPointSystem() {
+	public static synchronized PokerSquaresPointSystem getHypercornerPointSystem() {
+		return getHypercornerPointSystem(random);
+	}
+	
+	/**
+	 * Return a random hypercorner point system where hand scores are either -1 or 1 with equal probability.
+	 * @param random pseudorandom number generator
+	 * @return a random hypercorner point system where hand scores are either -1 or 1 with equal probability
+	 */
+	public static PokerSquaresPointSystem getHypercornerPointSystem(Random random) {
 		int[] scores = new int[PokerHand.NUM_HANDS];
 		for (int i = 0; i < PokerHand.NUM_HANDS; i++)
 			scores[i] = random.nextBoolean() ? 1 : -1;
@@ -142,7 +175,17 @@ public class PokerSquaresPointSystem {
 	 * All other hands score nothing. 
 	 * @return a point system where only one randomly selected Poker hand scores 1 point
 	 */
-	public static PokerSquaresPointSystem getSingleHandPointSystem() {
+	public static synchronized PokerSquaresPointSystem getSingleHandPointSystem() {
+		return getSingleHandPointSystem(random);
+	}
+	
+	/**
+	 * Return a point system where only one randomly selected Poker hand scores 1 point.  
+	 * All other hands score nothing. 
+	 * @param random pseudorandom number generator
+	 * @return a point system where only one randomly selected Poker hand scores 1 point
+	 */
+	public static PokerSquaresPointSystem getSingleHandPointSystem(Random random) {
 		return getSingleHandPointSystem(random.nextInt(PokerHand.NUM_HANDS));
 	}
 	
@@ -166,7 +209,16 @@ public class PokerSquaresPointSystem {
 	 * Return an "Ameritish" point system randomly generated between the normalized point ranges established by the American and British systems.
 	 * @return an "Ameritish" point system randomly generated between the normalized point ranges established by the American and British systems
 	 */
-	public static PokerSquaresPointSystem getAmeritishPointSystem() {
+	public static synchronized PokerSquaresPointSystem getAmeritishPointSystem() {
+		return getAmeritishPointSystem(random);
+	}
+	
+	/**
+	 * Return an "Ameritish" point system randomly generated between the normalized point ranges established by the American and British systems.
+	 * @param random pseudorandom number generator
+	 * @return an "Ameritish" point system randomly generated between the normalized point ranges established by the American and British systems
+	 */
+	public static PokerSquaresPointSystem getAmeritishPointSystem(Random random) {
 		int[] american = {0, 2, 5, 10, 15, 20, 25, 50, 75, 100};
 		int[] british = {0, 1, 3, 6, 12, 5, 10, 16, 30, 30};
 		int[] ameritish = new int[10];
@@ -186,23 +238,67 @@ public class PokerSquaresPointSystem {
 	 * @param grid given game grid 
 	 */
 	public void printGrid(Card[][] grid) {
-		// get scores
-		int[] handScores = getHandScores(grid);
+		System.out.print(appendGrid(grid, new StringBuilder()));
+	}
+
+	/**
+	 * Append the given game grid and score, as printed by printGrid, to the given StringBuilder.  Nothing is allocated
+	 * beyond any growth of the StringBuilder, so a reused StringBuilder formats grids without garbage.
+	 * @param grid given game grid
+	 * @param sb StringBuilder to append to
+	 * @return sb
+	 */
+	public StringBuilder appendGrid(Card[][] grid, StringBuilder sb) {
 		int totalScore = 0;
-		for (int handScore : handScores)
-			totalScore += handScore;
-		
-		// print grid
 		for (int row = 0; row < SIZE; row++) {
-			for (int col = 0; col < SIZE; col++) 
-				System.out.printf(" %s ", grid[row][col] == null ? "--" : grid[row][col].toString());
-			System.out.printf("%3d\n", handScores[row]);
+			for (int col = 0; col < SIZE; col++) {
+				sb.append(' ');
+				if (grid[row][col] == null)
+					sb.append("--");
+				else
+					grid[row][col].appendTo(sb);
+				sb.append(' ');
+			}
+			int rowScore = evaluator.getRowScore(grid, row);
+			totalScore += rowScore;
+			appendScore(sb, rowScore).append('\n');
+		}
+		for (int col = 0; col < SIZE; col++) {
+			int colScore = evaluator.getColScore(grid, col);
+			totalScore += colScore;
+			appendScore(sb, colScore).append(' ');
 		}
-		for (int col = 0; col < SIZE; col++) 
-			System.out.printf("%3d ", handScores[SIZE + col]);
-		System.out.printf("%3d Total\n", totalScore);
+		return appendScore(sb, totalScore).append(" Total\n");
+	}
+
+	/**
+	 * Append a score right-aligned in three characters (as "%3d").
+	 */
+	private static StringBuilder appendScore(StringBuilder sb, int score) {
+		int length = score < 0 ? 2 : 1;
+		for (int n = Math.abs(score); n >= 10; n /= 10)
+			length++;
+		for (; length < 3; length++)
+			sb.append(' ');
+		return sb.append(score);
+	}
+	
+	
+	/* (non-Javadoc)
+	 * @see java.lang.Object#equals(java.lang.Object)
+	 */
+	@Override
+	public boolean equals(Object obj) {
+		return obj == this || obj instanceof PokerSquaresPointSystem && Arrays.equals(scores, ((PokerSquaresPointSystem) obj).scores);
 	}
 	
+	/* (non-Javadoc)
+	 * @see java.lang.Object#hashCode()
+	 */
+	@Override
+	public int hashCode() {
+		return hashCode;
+	}
 	
 	/* (non-Javadoc)
 	 * @see java.lang.Object#toString()
@@ -0,0 +1,268 @@
+import java.io.BufferedReader;
+import java.io.FileReader;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Supplier;
+
+/**
+ * PokerSquaresReplay - deterministic recording, replay and regression testing of Poker Squares players.
+ *
+ * A game is fully determined by its deal seed (see PokerSquares#setSeed(long)) and, for a SeedablePlayer, by the
+ * player seed.  Recording a game stores every card drawn and position chosen; replaying it re-runs the same deal
+ * with the same player seed and reports the first move at which the player now decides differently.
+ *
+ * Monte Carlo players (e.g. MyPlayer, GreedyMCPlayer, MCTSPlayer) normally simulate until a wall-clock deadline,
+ * so the number of simulations, and with it their choices, would depend on timing.  Recording and replaying
+ * therefore switch SeedablePlayers to a fixed number of simulations per move (see
+ * SeedablePlayer#setSimulationsPerMove(int)), by default DEFAULT_SIMULATIONS_PER_MOVE; a recording replays move for
+ * move with the same budget.  Their timed strength is best compared statistically with compareBuilds over a large
+ * corpus of deals, which leaves the players' budgets as their suppliers set them.
+ */
+public class PokerSquaresReplay {
+
+	public static final int DEFAULT_SIMULATIONS_PER_MOVE = 1000; // fixed simulation budget per move for recording and replay
+	private static final double Z_95 = 1.96; // standard normal critical value for 95% confidence
+
+	/**
+	 * Play and record a single game with the default simulation budget.
+	 * @see #record(PokerSquaresPlayer, PokerSquaresPointSystem, long, long, int)
+	 */
+	public static GameRecord record(PokerSquaresPlayer player, PokerSquaresPointSystem system, long gameSeed, long playerSeed) {
+		return record(player, system, gameSeed, playerSeed, DEFAULT_SIMULATIONS_PER_MOVE);
+	}
+
+	/**
+	 * Play and record a single game.
+	 * @param player Poker Squares player
+	 * @param system point system
+	 * @param gameSeed seed of the game deal
+	 * @param playerSeed seed given to the player if it is a SeedablePlayer
+	 * @param simulationsPerMove simulations per move given to the player if it is a SeedablePlayer (0 for timed play)
+	 * @return the record of the game
+	 */
+	public static GameRecord record(PokerSquaresPlayer player, PokerSquaresPointSystem system, long gameSeed, long playerSeed,
+			int simulationsPerMove) {
+		setSimulationsPerMove(player, simulationsPerMove);
+		return record(new PokerSquares(player, system), player, gameSeed, playerSeed);
+	}
+
+	/**
+	 * Give a SeedablePlayer a simulation budget per move.
+	 */
+	private static void setSimulationsPerMove(PokerSquaresPlayer player, int simulationsPerMove) {
+		if (player instanceof SeedablePlayer)
+			((SeedablePlayer) player).setSimulationsPerMove(simulationsPerMove);
+	}
+
+	/**
+	 * Play and record a single game with an existing game (whose point system has already been given to the player).
+	 */
+	private static GameRecord record(PokerSquares game, PokerSquaresPlayer player, long gameSeed, long playerSeed) {
+		GameRecord record = new GameRecord(gameSeed, playerSeed);
+		game.setVerbose(false);
+		game.setGameRecord(record);
+		game.setSeed(gameSeed);
+		if (player instanceof SeedablePlayer)
+			((SeedablePlayer) player).setSeed(playerSeed);
+		game.play();
+		game.setGameRecord(null);
+		return record;
+	}
+
+	/**
+	 * Re-run a game recorded with the default simulation budget and report the first diverging move, if any.
+	 * @see #replay(PokerSquaresPlayer, PokerSquaresPointSystem, GameRecord, int)
+	 */
+	public static int replay(PokerSquaresPlayer player, PokerSquaresPointSystem system, GameRecord record) {
+		return replay(player, system, record, DEFAULT_SIMULATIONS_PER_MOVE);
+	}
+
+	/**
+	 * Re-run a recorded game with the given player and report the first diverging move, if any.
+	 * @param player Poker Squares player
+	 * @param system point system the recorded game was played with
+	 * @param record recorded game
+	 * @param simulationsPerMove simulations per move the game was recorded with (0 for timed play)
+	 * @return index of the first diverging play, or -1 if the replay matches the recording
+	 */
+	public static int replay(PokerSquaresPlayer player, PokerSquaresPointSystem system, GameRecord record, int simulationsPerMove) {
+		GameRecord replayed = record(player, system, record.getGameSeed(), record.getPlayerSeed(), simulationsPerMove);
+		int divergence = record.firstDivergence(replayed);
+		if (divergence < 0) {
+			if (record.getScore() != replayed.getScore())
+				System.out.printf("Replay of seed %d matches all plays but scores %d instead of %d\n",
+						record.getGameSeed(), replayed.getScore(), record.getScore());
+		}
+		else if (divergence >= replayed.getNumPlays())
+			System.out.printf("Replay of seed %d ends after play %d (recorded %d plays)\n",
+					record.getGameSeed(), replayed.getNumPlays(), record.getNumPlays());
+		else if (divergence >= record.getNumPlays())
+			System.out.printf("Replay of seed %d continues past play %d where the recording ended\n",
+					record.getGameSeed(), record.getNumPlays());
+		else {
+			int[] expected = record.getPlay(divergence);
+			int[] actual = replayed.getPlay(divergence);
+			System.out.printf("Replay of seed %d diverges at play %d: %s recorded at (%d, %d), replayed at (%d, %d)\n",
+					record.getGameSeed(), divergence, record.getCard(divergence), expected[0], expected[1], actual[0], actual[1]);
+		}
+		return divergence;
+	}
+
+	/**
+	 * Record a corpus of games with the default simulation budget.
+	 * @see #recordCorpus(PokerSquaresPlayer, PokerSquaresPointSystem, int, long, int)
+	 */
+	public static List<GameRecord> recordCorpus(PokerSquaresPlayer player, PokerSquaresPointSystem system, int numGames, long startSeed) {
+		return recordCorpus(player, system, numGames, startSeed, DEFAULT_SIMULATIONS_PER_MOVE);
+	}
+
+	/**
+	 * Record a corpus of games with successive deal seeds, using each deal seed as the player seed.
+	 * @param player Poker Squares player
+	 * @param system point system
+	 * @param numGames number of games to record
+	 * @param startSeed seed of the first game
+	 * @param simulationsPerMove simulations per move given to the player if it is a SeedablePlayer (0 for timed play)
+	 * @return game records in seed order
+	 */
+	public static List<GameRecord> recordCorpus(PokerSquaresPlayer player, PokerSquaresPointSystem system, int numGames, long startSeed,
+			int simulationsPerMove) {
+		setSimulationsPerMove(player, simulationsPerMove);
+		PokerSquares game = new PokerSquares(player, system);
+		List<GameRecord> records = new ArrayList<GameRecord>();
+		for (int i = 0; i < numGames; i++)
+			records.add(record(game, player, startSeed + i, startSeed + i));
+		return records;
+	}
+
+	/**
+	 * Replay a corpus of games recorded with the default simulation budget.
+	 * @see #replayCorpus(PokerSquaresPlayer, PokerSquaresPointSystem, List, int)
+	 */
+	public static int replayCorpus(PokerSquaresPlayer player, PokerSquaresPointSystem system, List<GameRecord> records) {
+		return replayCorpus(player, system, records, DEFAULT_SIMULATIONS_PER_MOVE);
+	}
+
+	/**
+	 * Replay a corpus of recorded games, reporting each divergence.
+	 * @param player Poker Squares player
+	 * @param system point system the games were recorded with
+	 * @param records recorded games
+	 * @param simulationsPerMove simulations per move the games were recorded with (0 for timed play)
+	 * @return the number of replays that diverged from their recordings
+	 */
+	public static int replayCorpus(PokerSquaresPlayer player, PokerSquaresPointSystem system, List<GameRecord> records,
+			int simulationsPerMove) {
+		int diverged = 0;
+		for (GameRecord record : records)
+			if (replay(player, system, record, simulationsPerMove) >= 0)
+				diverged++;
+		System.out.printf("%d of %d replays diverged\n", diverged, records.size());
+		return diverged;
+	}
+
+	/**
+	 * Write game records to a file, one per line.
+	 * @param records game records
+	 * @param filename file name
+	 * @throws IOException if the file cannot be written
+	 */
+	public static void saveRecords(List<GameRecord> records, String filename) throws IOException {
+		try (PrintWriter out = new PrintWriter(new FileWriter(filename))) {
+			for (GameRecord record : records)
+				out.println(record);
+		}
+	}
+
+	/**
+	 * Read game records from a file written by saveRecords.
+	 * @param filename file name
+	 * @return game records in file order
+	 * @throws IOException if the file cannot be read
+	 */
+	public static List<GameRecord> loadRecords(String filename) throws IOException {
+		List<GameRecord> records = new ArrayList<GameRecord>();
+		try (BufferedReader in = new BufferedReader(new FileReader(filename))) {
+			String line;
+			while ((line = in.readLine()) != null)
+				if (!line.trim().isEmpty())
+					records.add(GameRecord.parse(line));
+		}
+		return records;
+	}
+
+	/**
+	 * Play two player builds on the same corpus of deals (with the same player seeds) in parallel and report the
+	 * paired score difference (candidate minus baseline) with a 95% confidence interval.  Each worker thread uses its
+	 * own player instances from the given suppliers.
+	 * @param baseline supplier of baseline player instances
+	 * @param candidate supplier of candidate player instances
+	 * @param system point system
+	 * @param numGames number of deals
+	 * @param startSeed seed of the first deal. Successive deals use successive seeds
+	 * @param numThreads number of worker threads
+	 * @return paired statistics of the candidate minus baseline score differences
+	 */
+	public static RunningStatistics compareBuilds(Supplier<? extends PokerSquaresPlayer> baseline,
+			Supplier<? extends PokerSquaresPlayer> candidate, PokerSquaresPointSystem system,
+			int numGames, long startSeed, int numThreads) {
+		int[] baselineScores = new int[numGames];
+		int[] candidateScores = new int[numGames];
+		ExecutorService executor = Executors.newFixedThreadPool(numThreads);
+		try {
+			List<Future<?>> futures = new ArrayList<Future<?>>();
+			for (int t = 0; t < numThreads; t++) {
+				final int first = t;
+				futures.add(executor.submit(() -> { // each worker plays every numThreads-th deal
+					PokerSquaresPlayer a = baseline.get(), b = candidate.get();
+					PokerSquares gameA = new PokerSquares(a, system), gameB = new PokerSquares(b, system);
+					for (int i = first; i < numGames; i += numThreads) {
+						baselineScores[i] = record(gameA, a, startSeed + i, startSeed + i).getScore();
+						candidateScores[i] = record(gameB, b, startSeed + i, startSeed + i).getScore();
+					}
+				}));
+			}
+			for (Future<?> future : futures)
+				future.get();
+		} catch (Exception e) {
+			throw new RuntimeException(e);
+		} finally {
+			executor.shutdown();
+		}
+
+		RunningStatistics baselineStats = new RunningStatistics(), candidateStats = new RunningStatistics();
+		RunningStatistics diffStats = new RunningStatistics();
+		for (int i = 0; i < numGames; i++) {
+			baselineStats.add(baselineScores[i]);
+			candidateStats.add(candidateScores[i]);
+			diffStats.add(candidateScores[i] - baselineScores[i]);
+		}
+		System.out.printf("Baseline  %s\n", baselineStats);
+		System.out.printf("Candidate %s\n", candidateStats);
+		System.out.printf("Paired difference %s\n", diffStats);
+		double z = diffStats.getZ();
+		if (Math.abs(z) >= Z_95)
+			System.out.printf("Significant score %s (z = %.2f)\n", z > 0 ? "improvement" : "regression", z);
+		else
+			System.out.printf("No significant score difference (z = %.2f)\n", z);
+		return diffStats;
+	}
+
+	/**
+	 * Demonstrate recording, replay and build comparison.
+	 * @param args (not used)
+	 */
+	public static void main(String[] args) {
+		PokerSquaresPointSystem system = PokerSquaresPointSystem.getBritishPointSystem();
+		List<GameRecord> corpus = recordCorpus(new RandomPlayer(), system, 100, 0L);
+		replayCorpus(new RandomPlayer(), system, corpus);
+		replayCorpus(new GreedyMCPlayer(), system, recordCorpus(new GreedyMCPlayer(), system, 5, 0L)); // fixed budget
+		compareBuilds(RandomPlayer::new, FlushPlayer::new, system, 10000, 0L, Runtime.getRuntime().availableProcessors());
+	}
+}
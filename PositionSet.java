@@ -0,0 +1,100 @@
+/**
+ * PositionSet - a set of grid positions (row-major indices 0 through 24) kept both as a 25-bit mask and as a dense
+ * array, with O(1) membership, removal and iteration and no boxing or allocation.
+ *
+ * Removal swaps the removed position to the end of the dense prefix, so the dense array itself is the undo log:
+ * positions removed since mark() are restored in reverse order by restore() or restoreTo(int) simply by growing the
+ * prefix again.  Removals and restorations must therefore be properly nested (last removed, first restored).
+ */
+public class PositionSet {
+
+	private static final int NUM_POS = PokerSquares.SIZE * PokerSquares.SIZE; // number of positions in square grid
+	private final int[] positions = new int[NUM_POS]; // positions in the set in [0, size), removed ones after
+	private final int[] indices = new int[NUM_POS]; // index of each position in positions
+	private int size = 0; // number of positions in the set
+	private int mask = 0; // bit p is set if and only if position p is in the set
+
+	/**
+	 * Put all positions in the set, forgetting any removals.
+	 */
+	public void fill() {
+		for (int i = 0; i < NUM_POS; i++) {
+			positions[i] = i;
+			indices[i] = i;
+		}
+		size = NUM_POS;
+		mask = (1 << NUM_POS) - 1;
+	}
+
+	/**
+	 * Return whether or not the given position is in the set.
+	 * @param pos row-major position index
+	 * @return whether or not the given position is in the set
+	 */
+	public boolean contains(int pos) {
+		return (mask & (1 << pos)) != 0;
+	}
+
+	/**
+	 * Remove the given position, which must be in the set.
+	 * @param pos row-major position index
+	 */
+	public void remove(int pos) {
+		int i = indices[pos];
+		int last = positions[--size];
+		positions[i] = last;
+		indices[last] = i;
+		positions[size] = pos;
+		indices[pos] = size;
+		mask &= ~(1 << pos);
+	}
+
+	/**
+	 * Restore the most recently removed position.
+	 */
+	public void restore() {
+		mask |= 1 << positions[size++];
+	}
+
+	/**
+	 * Get a mark of the current state, to which restoreTo(int) can later return.
+	 * @return mark of the current state
+	 */
+	public int mark() {
+		return size;
+	}
+
+	/**
+	 * Restore all positions removed since the given mark was taken.
+	 * @param mark mark returned by mark()
+	 */
+	public void restoreTo(int mark) {
+		while (size < mark)
+			restore();
+	}
+
+	/**
+	 * Get the number of positions in the set.
+	 * @return number of positions in the set
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * Get the position at the given index of the dense array.
+	 * @param i index in [0, size())
+	 * @return row-major position index
+	 */
+	public int get(int i) {
+		return positions[i];
+	}
+
+	/**
+	 * Get the set as a bit mask where bit p is set if and only if position p is in the set.
+	 * @return bit mask of the set
+	 */
+	public int getMask() {
+		return mask;
+	}
+}
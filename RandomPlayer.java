@@ -1,4 +1,5 @@
 import java.util.Collections;
+import java.util.Random;
 import java.util.Stack;
 
 /**
@@ -6,13 +7,14 @@ import java.util.Stack;
  * makes random placements.
  * Author: Todd W. Neller
  */
-public class RandomPlayer implements PokerSquaresPlayer {
+public class RandomPlayer implements SeedablePlayer, SnapshotPlayer {
 
 	/**
 	 * a stack of all unchosen plays represented as row-major indices. Row-major indices: play (r, c) is recorded as a single integer r * SIZE + c.
 	 * (See <a href="http://en.wikipedia.org/wiki/Row-major_order">http://en.wikipedia.org/wiki/Row-major_order</a>.)
 	 */
 	private Stack<Integer> plays = new Stack<Integer>(); 
+	private Random random = new Random(); // pseudorandom number generator for play order
 	
 	/* (non-Javadoc)
 	 * @see PokerSquaresPlayer#setPointSystem(PokerSquaresPointSystem, long)
@@ -30,7 +32,7 @@ public class RandomPlayer implements PokerSquaresPlayer {
 		plays.clear();
 		for (int i = 0; i < 25; i++)
 			plays.push(i);
-		Collections.shuffle(plays); 
+		Collections.shuffle(plays, random); 
 	}
 
 	/* (non-Javadoc)
@@ -43,6 +45,27 @@ public class RandomPlayer implements PokerSquaresPlayer {
 		return playPos; // return it
 	}
 
+	/* (non-Javadoc)
+	 * @see SnapshotPlayer#getPlay(Card[][], Card, long)
+	 */
+	@Override
+	public int[] getPlay(Card[][] grid, Card card, long millisRemaining) { // a random permutation of the empty positions
+		plays.clear();
+		for (int i = 0; i < 25; i++)
+			if (grid[i / 5][i % 5] == null)
+				plays.push(i);
+		Collections.shuffle(plays, random);
+		return getPlay(card, millisRemaining);
+	}
+
+	/* (non-Javadoc)
+	 * @see SeedablePlayer#setSeed(long)
+	 */
+	@Override
+	public void setSeed(long seed) {
+		random.setSeed(seed);
+	}
+
 	/* (non-Javadoc)
 	 * @see PokerSquaresPlayer#getName()
 	 */
@@ -61,4 +84,4 @@ public class RandomPlayer implements PokerSquaresPlayer {
 		new PokerSquares(new RandomPlayer(), system).play(); // play a single game
 	}
 
-}
\ No newline at end of file
+}
\ No newline at end of file
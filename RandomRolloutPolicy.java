@@ -0,0 +1,31 @@
+import java.util.Random;
+
+/**
+ * RandomRolloutPolicy - a rollout policy that places each card in a uniformly random empty position.
+ * It ignores the point system and is the cheapest possible policy.
+ */
+public class RandomRolloutPolicy implements RolloutPolicy {
+
+	/* (non-Javadoc)
+	 * @see RolloutPolicy#setPointSystem(PokerSquaresPointSystem)
+	 */
+	@Override
+	public void setPointSystem(PokerSquaresPointSystem system) {
+	}
+
+	/* (non-Javadoc)
+	 * @see RolloutPolicy#choosePlay(Card, Card[][], int, Random)
+	 */
+	@Override
+	public int choosePlay(Card card, Card[][] grid, int legalPlays, Random random) {
+		return RolloutPolicy.randomPlay(legalPlays, random);
+	}
+
+	/* (non-Javadoc)
+	 * @see RolloutPolicy#getName()
+	 */
+	@Override
+	public String getName() {
+		return "Random";
+	}
+}
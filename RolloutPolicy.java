@@ -0,0 +1,44 @@
+import java.util.Random;
+
+/**
+ * RolloutPolicy - a placement policy used to complete simulated games (rollouts) in Monte Carlo players.
+ * Given a drawn card and the current grid, a policy chooses one of the legal (empty) positions.  Policies are
+ * used by one player thread at a time and may keep reusable scratch state.
+ */
+public interface RolloutPolicy {
+
+	/**
+	 * setPointSystem - provides the policy with the point system used in subsequent rollouts.
+	 * @param system - point system
+	 */
+	void setPointSystem(PokerSquaresPointSystem system);
+
+	/**
+	 * choosePlay - chooses a position for the given card.  The grid must be left unchanged on return.
+	 * @param card - card drawn
+	 * @param grid - current grid with Card objects or null (for empty positions)
+	 * @param legalPlays - bit mask of the empty positions (bit p set for row-major index p), not zero
+	 * @param random - pseudorandom number generator of the simulating player
+	 * @return the chosen position as a row-major index
+	 */
+	int choosePlay(Card card, Card[][] grid, int legalPlays, Random random);
+
+	/**
+	 * getName - gets the name of the policy.
+	 * @return policy name
+	 */
+	String getName();
+
+	/**
+	 * randomPlay - chooses one of the given legal plays uniformly at random.
+	 * @param legalPlays - bit mask of the empty positions, not zero
+	 * @param random - pseudorandom number generator
+	 * @return the chosen position as a row-major index
+	 */
+	static int randomPlay(int legalPlays, Random random) {
+		for (int n = random.nextInt(Integer.bitCount(legalPlays)); n > 0; n--)
+			legalPlays &= legalPlays - 1; // clear the lowest set bit
+		return Integer.numberOfTrailingZeros(legalPlays);
+	}
+
+}
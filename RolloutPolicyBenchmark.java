@@ -0,0 +1,71 @@
+import java.util.Random;
+
+/**
+ * RolloutPolicyBenchmark - measures, for each rollout policy and point system, how many complete simulated games
+ * (playouts from an empty grid with random deals) a policy performs per second and the mean final score of those
+ * playouts.  The trade-off between the two guides the choice of policy for Monte Carlo players.
+ */
+public class RolloutPolicyBenchmark {
+
+	private static final int SIZE = PokerSquares.SIZE; // number of rows/columns in square grid
+	private static final int NUM_POS = SIZE * SIZE; // number of positions in square grid
+
+	/**
+	 * Perform playouts with the given policy for the given time and return {playouts per second, mean final score}.
+	 * @param policy rollout policy (its point system already set)
+	 * @param system point system
+	 * @param millis duration of the measurement in milliseconds
+	 * @param random pseudorandom number generator for deals and policy choices
+	 * @return {playouts per second, mean final score}
+	 */
+	public static double[] measure(RolloutPolicy policy, PokerSquaresPointSystem system, long millis, Random random) {
+		Card[][] grid = new Card[SIZE][SIZE];
+		Card[] deck = Card.getAllCards();
+		long playouts = 0;
+		long totalScore = 0;
+		long startTime = System.currentTimeMillis();
+		long endTime = startTime + millis;
+		while (System.currentTimeMillis() < endTime) {
+			int legalPlays = (1 << NUM_POS) - 1;
+			for (int i = 0; i < NUM_POS; i++) {
+				// draw a random card by a partial Fisher-Yates shuffle of the deck
+				int c = i + random.nextInt(deck.length - i);
+				Card card = deck[c];
+				deck[c] = deck[i];
+				deck[i] = card;
+				int play = policy.choosePlay(card, grid, legalPlays, random);
+				grid[play / SIZE][play % SIZE] = card;
+				legalPlays &= ~(1 << play);
+			}
+			totalScore += system.getScore(grid);
+			playouts++;
+			for (int row = 0; row < SIZE; row++)
+				for (int col = 0; col < SIZE; col++)
+					grid[row][col] = null;
+		}
+		double seconds = (System.currentTimeMillis() - startTime) / 1000.0;
+		return new double[] {playouts / seconds, (double) totalScore / playouts};
+	}
+
+	/**
+	 * Report playouts per second and mean playout score of each built-in policy under several point systems.
+	 * @param args optional measurement milliseconds per policy and system (default 2000)
+	 */
+	public static void main(String[] args) {
+		long millis = args.length > 0 ? Long.parseLong(args[0]) : 2000L;
+		RolloutPolicy[] policies = {new RandomRolloutPolicy(), new FlushRolloutPolicy(), new PatternRolloutPolicy(), new GreedyRolloutPolicy()};
+		PokerSquaresPointSystem.setSeed(42L);
+		PokerSquaresPointSystem[] systems = {PokerSquaresPointSystem.getBritishPointSystem(), PokerSquaresPointSystem.getAmericanPointSystem(),
+				PokerSquaresPointSystem.getAmeritishPointSystem(), PokerSquaresPointSystem.getHypercornerPointSystem(),
+				PokerSquaresPointSystem.getSingleHandPointSystem(PokerHand.FLUSH.id)};
+		String[] systemNames = {"British", "American", "Ameritish", "Hypercorner", "Flush only"};
+		System.out.printf("%-12s %-8s %14s %10s\n", "System", "Policy", "Playouts/sec", "Mean score");
+		for (int s = 0; s < systems.length; s++)
+			for (RolloutPolicy policy : policies) {
+				policy.setPointSystem(systems[s]);
+				measure(policy, systems[s], millis / 4, new Random(0)); // warm up
+				double[] result = measure(policy, systems[s], millis, new Random(0));
+				System.out.printf("%-12s %-8s %14.0f %10.2f\n", systemNames[s], policy.getName(), result[0], result[1]);
+			}
+	}
+}
@@ -0,0 +1,130 @@
+/**
+ * RunningStatistics - numerically stable running mean and variance (Welford's method) of a stream of values,
+ * with normal-approximation confidence intervals for the mean.
+ */
+public class RunningStatistics {
+
+	private long count = 0; // number of values added
+	private double mean = 0; // running mean
+	private double m2 = 0; // running sum of squared differences from the mean
+	private double min = Double.POSITIVE_INFINITY; // minimum value added
+	private double max = Double.NEGATIVE_INFINITY; // maximum value added
+
+	/**
+	 * Remove all values.
+	 */
+	public void clear() {
+		count = 0;
+		mean = 0;
+		m2 = 0;
+		min = Double.POSITIVE_INFINITY;
+		max = Double.NEGATIVE_INFINITY;
+	}
+
+	/**
+	 * Add a value.
+	 * @param x value to add
+	 */
+	public void add(double x) {
+		count++;
+		double delta = x - mean;
+		mean += delta / count;
+		m2 += delta * (x - mean);
+		if (x < min) min = x;
+		if (x > max) max = x;
+	}
+
+	public long getCount() {
+		return count;
+	}
+
+	public double getMean() {
+		return mean;
+	}
+
+	public double getMin() {
+		return min;
+	}
+
+	public double getMax() {
+		return max;
+	}
+
+	/**
+	 * Get the sample variance (n - 1 denominator), or 0 with fewer than two values.
+	 * @return sample variance
+	 */
+	public double getVariance() {
+		return count > 1 ? m2 / (count - 1) : 0;
+	}
+
+	public double getStdDev() {
+		return Math.sqrt(getVariance());
+	}
+
+	/**
+	 * Get the standard error of the mean.
+	 * @return standard error of the mean
+	 */
+	public double getStandardError() {
+		return count > 0 ? Math.sqrt(getVariance() / count) : Double.POSITIVE_INFINITY;
+	}
+
+	/**
+	 * Get the half width of the normal-approximation confidence interval for the mean.
+	 * @param z standard normal critical value (e.g. 1.96 for 95% confidence)
+	 * @return half width of the confidence interval
+	 */
+	public double getConfidenceHalfWidth(double z) {
+		return z * getStandardError();
+	}
+
+	/**
+	 * Get the z statistic of the mean against zero (mean divided by standard error).
+	 * @return z statistic of the mean
+	 */
+	public double getZ() {
+		double se = getStandardError();
+		return se == 0 ? (mean == 0 ? 0 : Math.signum(mean) * Double.POSITIVE_INFINITY) : mean / se;
+	}
+
+	/**
+	 * Get the standard normal cumulative distribution function at z (Abramowitz and Stegun 26.2.17, absolute error
+	 * below 7.5e-8).
+	 * @param z standard normal value
+	 * @return probability that a standard normal variable is at most z
+	 */
+	public static double normalCdf(double z) {
+		if (Double.isInfinite(z))
+			return z > 0 ? 1 : 0;
+		double t = 1 / (1 + 0.2316419 * Math.abs(z));
+		double tail = Math.exp(-z * z / 2) / Math.sqrt(2 * Math.PI)
+				* t * (0.319381530 + t * (-0.356563782 + t * (1.781477937 + t * (-1.821255978 + t * 1.330274429))));
+		return z >= 0 ? 1 - tail : tail;
+	}
+
+	/**
+	 * Get the standard normal critical value with the given upper tail probability, inverting normalCdf by bisection.
+	 * @param tail probability that a standard normal variable exceeds the critical value, in (0, 0.5]
+	 * @return critical value z, with normalCdf(z) = 1 - tail
+	 */
+	public static double normalCriticalValue(double tail) {
+		double low = 0, high = 40;
+		for (int i = 0; i < 100; i++) {
+			double mid = (low + high) / 2;
+			if (1 - normalCdf(mid) > tail)
+				low = mid;
+			else
+				high = mid;
+		}
+		return (low + high) / 2;
+	}
+
+	/* (non-Javadoc)
+	 * @see java.lang.Object#toString()
+	 */
+	public String toString() {
+		return String.format("n: %d, Mean: %f, Standard Deviation: %f, 95%% CI: [%f, %f]", count, mean, getStdDev(),
+				mean - getConfidenceHalfWidth(1.96), mean + getConfidenceHalfWidth(1.96));
+	}
+}
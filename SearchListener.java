@@ -0,0 +1,19 @@
+/**
+ * SearchListener - receives the evolving result of an AnytimeSearch: the current best play, its estimated value and
+ * the confidence that it is truly best.  Updates are delivered on the searching thread, so listeners should return
+ * quickly.
+ */
+public interface SearchListener {
+
+	/**
+	 * bestPlayUpdated - reports the current best play of a search in progress (or, with done set, its final result).
+	 * @param row - row of the current best play
+	 * @param col - column of the current best play
+	 * @param meanScore - mean simulated score of the current best play
+	 * @param confidence - approximate probability that the current best play outscores the runner-up in expectation
+	 * @param rollouts - number of simulations performed so far over all candidate plays
+	 * @param done - whether the search has ended (by deadline or cancellation)
+	 */
+	void bestPlayUpdated(int row, int col, double meanScore, double confidence, long rollouts, boolean done);
+
+}
@@ -0,0 +1,24 @@
+/**
+ * SeedablePlayer - a PokerSquaresPlayer whose pseudorandom decisions can be made reproducible.
+ * Seeding a player before init() and dealing with a seeded game (see PokerSquares#setSeed(long)) makes a game
+ * repeatable move for move, provided the player's choices do not depend on wall-clock timing (see
+ * setSimulationsPerMove).
+ */
+public interface SeedablePlayer extends PokerSquaresPlayer {
+
+	/**
+	 * setSeed - sets the seed of the player's pseudorandom number generator.
+	 * @param seed - pseudorandom number generator seed
+	 */
+	void setSeed(long seed);
+
+	/**
+	 * setSimulationsPerMove - makes a player that simulates until its time per move runs out perform a fixed number of
+	 * simulations per move instead, however long they take, so that its choices no longer depend on wall-clock
+	 * timing.  Players whose choices never depend on timing ignore it.
+	 * @param simulations - simulations per move, or 0 to simulate for the time per move (the default)
+	 */
+	default void setSimulationsPerMove(int simulations) {
+	}
+
+}
@@ -0,0 +1,263 @@
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * SessionManager - hosts many concurrent Poker Squares games (GameSessions), each with its own player instance and
+ * time budget, all sharing one read-only point system.
+ *
+ * Every request runs as a task on its own thread: a virtual thread per task where the runtime supports them (Java
+ * 21 and later, found by reflection so the class also runs on older runtimes), and otherwise a cached pool of
+ * daemon platform threads.  Waiting is thus cheap, but searching is not: a fair semaphore with one permit per
+ * search thread (by default one per available processor) bounds how many players think at once, so that heavy Monte
+ * Carlo players queue for the CPU in turn instead of time-slicing each other into timeouts.
+ *
+ * As in PokerSquares, setPointSystem runs on a thread of its own and is waited for at most the point system time,
+ * here while holding a search permit.  A player that overruns it (or throws) is abandoned to finish on its own,
+ * without the permit, and its session is over at once, scored as a failure.
+ */
+public class SessionManager implements AutoCloseable {
+
+	private final PokerSquaresPointSystem system; // shared point system
+	private final Supplier<? extends PokerSquaresPlayer> playerFactory; // creates the player of each session
+	private final long gameMillis; // time budget of each session's player
+	private final Semaphore searchPermits; // bounds concurrent player computation
+	private final ExecutorService executor; // runs requests, on virtual threads if available
+	private final boolean virtualThreads; // whether executor uses virtual threads
+	private final ConcurrentHashMap<Long, GameSession> sessions = new ConcurrentHashMap<Long, GameSession>(); // open sessions by identifier
+	private final AtomicLong nextId = new AtomicLong(); // next session identifier
+
+	/**
+	 * Create a session manager with one search thread per available processor.
+	 * @param system shared point system
+	 * @param playerFactory creates a new player for each session
+	 * @param gameMillis time budget of each session's player
+	 */
+	public SessionManager(PokerSquaresPointSystem system, Supplier<? extends PokerSquaresPlayer> playerFactory, long gameMillis) {
+		this(system, playerFactory, gameMillis, Runtime.getRuntime().availableProcessors());
+	}
+
+	/**
+	 * Create a session manager.
+	 * @param system shared point system
+	 * @param playerFactory creates a new player for each session
+	 * @param gameMillis time budget of each session's player
+	 * @param searchThreads maximum number of players computing at once
+	 */
+	public SessionManager(PokerSquaresPointSystem system, Supplier<? extends PokerSquaresPlayer> playerFactory, long gameMillis, int searchThreads) {
+		this.system = system;
+		this.playerFactory = playerFactory;
+		this.gameMillis = gameMillis;
+		this.searchPermits = new Semaphore(searchThreads, true);
+		ExecutorService virtualExecutor = newVirtualThreadExecutor();
+		this.virtualThreads = virtualExecutor != null;
+		this.executor = virtualThreads ? virtualExecutor : Executors.newCachedThreadPool(runnable -> {
+			Thread thread = new Thread(runnable, "session-worker");
+			thread.setDaemon(true);
+			return thread;
+		});
+	}
+
+	/**
+	 * Create a virtual thread per task executor by reflection, or return null if the runtime lacks virtual threads.
+	 */
+	private static ExecutorService newVirtualThreadExecutor() {
+		try {
+			return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+		} catch (ReflectiveOperationException e) {
+			return null;
+		}
+	}
+
+	/**
+	 * Run a task on the executor, unwrapping checked exceptions into the returned future.
+	 */
+	private <T> CompletableFuture<T> submit(SessionTask<T> task) {
+		return CompletableFuture.supplyAsync(() -> {
+			try {
+				return task.call();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new CompletionException(e);
+			}
+		}, executor);
+	}
+
+	/**
+	 * A session request that may be interrupted while waiting.
+	 */
+	private interface SessionTask<T> {
+		T call() throws InterruptedException;
+	}
+
+	/**
+	 * Open a new session: create its player, set its point system and initialize it.
+	 * @return future session
+	 */
+	public CompletableFuture<GameSession> openSession() {
+		return submit(() -> {
+			PokerSquaresPlayer player = playerFactory.get();
+			boolean ready;
+			searchPermits.acquire();
+			try {
+				ready = setPointSystem(player);
+			}
+			finally {
+				searchPermits.release();
+			}
+			GameSession session = new GameSession(nextId.getAndIncrement(), player, system, gameMillis, ready);
+			sessions.put(session.getId(), session);
+			return session;
+		});
+	}
+
+	/**
+	 * Give a player the point system on another executor thread, waiting at most the point system time.  A player
+	 * still processing it then is interrupted and abandoned.
+	 * @return whether the player processed the point system in time without throwing
+	 */
+	private boolean setPointSystem(PokerSquaresPlayer player) throws InterruptedException {
+		Future<?> setup = executor.submit(() -> player.setPointSystem(system, PokerSquares.POINT_SYSTEM_MILLIS));
+		try {
+			setup.get(PokerSquares.POINT_SYSTEM_MILLIS, TimeUnit.MILLISECONDS);
+			return true;
+		} catch (TimeoutException e) {
+			setup.cancel(true);
+			return false;
+		} catch (ExecutionException e) {
+			return false;
+		}
+	}
+
+	/**
+	 * Ask a session's player where to place the given card, and place it there.  Requests to the same session are
+	 * served in turn.
+	 * @param sessionId session identifier
+	 * @param card dealt card
+	 * @return future row and column of the play, completing exceptionally if the session is unknown or over, the
+	 * card was already dealt, or the player times out or plays illegally
+	 */
+	public CompletableFuture<int[]> requestPlay(long sessionId, Card card) {
+		GameSession session = sessions.get(sessionId);
+		if (session == null) {
+			CompletableFuture<int[]> future = new CompletableFuture<int[]>();
+			future.completeExceptionally(new IllegalArgumentException("No session " + sessionId));
+			return future;
+		}
+		return submit(() -> session.play(card, searchPermits));
+	}
+
+	/**
+	 * Play a whole game in a new session, dealing as PokerSquares does for the given seed, and close the session.
+	 * @param seed deal seed
+	 * @return future final score (10 times the minimum hand score if the player failed)
+	 */
+	public CompletableFuture<Integer> playGame(long seed) {
+		return openSession().thenApplyAsync(session -> {
+			try {
+				List<Card> deck = new ArrayList<Card>();
+				Collections.addAll(deck, Card.getAllCards());
+				Collections.shuffle(deck, new Random(seed));
+				for (int i = deck.size() - 1; !session.isOver(); i--) // deal from the top of the shuffled stack
+					session.play(deck.get(i), searchPermits);
+			} catch (IllegalStateException e) { // timeout, player exception or illegal play, scored by the session
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new CompletionException(e);
+			} finally {
+				closeSession(session.getId());
+			}
+			return session.getScore();
+		}, executor);
+	}
+
+	/**
+	 * Close a session, discarding its player.
+	 * @param sessionId session identifier
+	 * @return the closed session, or null if there was no such session
+	 */
+	public GameSession closeSession(long sessionId) {
+		return sessions.remove(sessionId);
+	}
+
+	/**
+	 * Get an open session.
+	 * @param sessionId session identifier
+	 * @return open session, or null if there is no such session
+	 */
+	public GameSession getSession(long sessionId) {
+		return sessions.get(sessionId);
+	}
+
+	public int getSessionCount() {
+		return sessions.size();
+	}
+
+	/**
+	 * Get the approximate number of requests waiting for a search permit.
+	 * @return number of queued searches
+	 */
+	public int getQueuedSearchCount() {
+		return searchPermits.getQueueLength();
+	}
+
+	public boolean usesVirtualThreads() {
+		return virtualThreads;
+	}
+
+	public PokerSquaresPointSystem getPointSystem() {
+		return system;
+	}
+
+	/**
+	 * Stop accepting requests and wait briefly for running ones to finish.
+	 */
+	@Override
+	public void close() {
+		executor.shutdown();
+		try {
+			if (!executor.awaitTermination(PokerSquares.POINT_SYSTEM_MILLIS, TimeUnit.MILLISECONDS))
+				executor.shutdownNow();
+		} catch (InterruptedException e) {
+			executor.shutdownNow();
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	/**
+	 * Play many concurrent games with MCTSPlayers (each with a small node store, as thousands may be open at once) and
+	 * report throughput and the mean score.
+	 * @param args optional number of games (default 1000) and per-game milliseconds (default 250)
+	 */
+	public static void main(String[] args) {
+		int numGames = args.length > 0 ? Integer.parseInt(args[0]) : 1000;
+		long millis = args.length > 1 ? Long.parseLong(args[1]) : 250L;
+		PokerSquaresPointSystem system = PokerSquaresPointSystem.getAmeritishPointSystem();
+		try (SessionManager manager = new SessionManager(system, () -> new MCTSPlayer(new GreedyRolloutPolicy(), 1 << 12, MCTSPlayer.DEFAULT_EXPLORATION), millis)) {
+			System.out.printf("%d sessions, %d ms each, %s threads, %d search permits\n", numGames, millis,
+					manager.usesVirtualThreads() ? "virtual" : "platform", manager.searchPermits.availablePermits());
+			long startTime = System.currentTimeMillis();
+			List<CompletableFuture<Integer>> games = new ArrayList<CompletableFuture<Integer>>();
+			for (int i = 0; i < numGames; i++)
+				games.add(manager.playGame(i));
+			RunningStatistics scores = new RunningStatistics();
+			for (CompletableFuture<Integer> game : games)
+				scores.add(game.join());
+			double seconds = (System.currentTimeMillis() - startTime) / 1000.0;
+			System.out.printf("%.1f games/sec; scores %s\n", numGames / seconds, scores);
+		}
+	}
+}
@@ -0,0 +1,124 @@
+import java.util.Random;
+
+/**
+ * SimDeck - the undealt cards of a game, supporting O(1), allocation-free card removal, random draws and undo
+ * for Monte Carlo simulation.
+ *
+ * Undealt card identification numbers (see Card#getCardId()) are kept in the prefix [0, size) of an array, with
+ * the position of each card kept in an inverse index.  A random draw is one step of a partial Fisher-Yates shuffle:
+ * the drawn card is swapped to the end of the prefix and the prefix shrinks.  Each draw records its swap position
+ * on an undo stack so that draws can be taken back in reverse order, restoring the exact array order.  Cards that
+ * have really been dealt are removed with remove(int), which must not be called while simulated draws are pending.
+ */
+public class SimDeck {
+
+	private final int[] cards = new int[Card.NUM_CARDS]; // undealt card ids in positions [0, size)
+	private final int[] positions = new int[Card.NUM_CARDS]; // position of each card id in cards
+	private final int[] undoStack = new int[Card.NUM_CARDS]; // swap positions of pending draws
+	private int size; // number of undealt cards
+	private int numDraws; // number of pending draws on the undo stack
+
+	/**
+	 * Create a full deck.
+	 */
+	public SimDeck() {
+		reset();
+	}
+
+	/**
+	 * Return all cards to the deck and clear pending draws.
+	 */
+	public void reset() {
+		for (int i = 0; i < Card.NUM_CARDS; i++) {
+			cards[i] = i;
+			positions[i] = i;
+		}
+		size = Card.NUM_CARDS;
+		numDraws = 0;
+	}
+
+	/**
+	 * Permanently remove a dealt card from the deck.
+	 * @param cardId identification number of the dealt card, which must be undealt
+	 */
+	public void remove(int cardId) {
+		if (numDraws != 0)
+			throw new IllegalStateException("Cannot remove a card while simulated draws are pending");
+		swap(positions[cardId], --size);
+	}
+
+	/**
+	 * Draw an undealt card uniformly at random.  The draw must later be taken back with undo() or undoAll().
+	 * @param random pseudorandom number generator
+	 * @return identification number of the drawn card
+	 */
+	public int draw(Random random) {
+		int i = random.nextInt(size);
+		swap(i, --size);
+		undoStack[numDraws++] = i;
+		return cards[size];
+	}
+
+	/**
+	 * Draw the given undealt card, e.g. to simulate a particular next card.  The draw must later be taken back with
+	 * undo() or undoAll().
+	 * @param cardId identification number of the card, which must be undealt
+	 */
+	public void drawCard(int cardId) {
+		int i = positions[cardId];
+		swap(i, --size);
+		undoStack[numDraws++] = i;
+	}
+
+	/**
+	 * Return the most recently drawn card to the deck.
+	 */
+	public void undo() {
+		swap(undoStack[--numDraws], size++);
+	}
+
+	/**
+	 * Return all pending drawn cards to the deck.
+	 */
+	public void undoAll() {
+		while (numDraws > 0)
+			undo();
+	}
+
+	/**
+	 * Return whether or not the given card is undealt (neither removed nor drawn).
+	 * @param cardId card identification number
+	 * @return whether or not the given card is undealt
+	 */
+	public boolean contains(int cardId) {
+		return positions[cardId] < size;
+	}
+
+	/**
+	 * Get the number of undealt cards.
+	 * @return number of undealt cards
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * Get the identification number of the undealt card at the given position.
+	 * @param i position in [0, size())
+	 * @return card identification number
+	 */
+	public int get(int i) {
+		return cards[i];
+	}
+
+	/**
+	 * Swap the cards at two positions, updating their inverse index.
+	 */
+	private void swap(int i, int j) {
+		int a = cards[i], b = cards[j];
+		cards[i] = b;
+		cards[j] = a;
+		positions[b] = i;
+		positions[a] = j;
+	}
+}
@@ -0,0 +1,22 @@
+/**
+ * SnapshotPlayer - a PokerSquaresPlayer that can also choose a play statelessly, from a snapshot of a game in
+ * progress, rather than only incrementally from the cards it has been fed since init().
+ * This serves requests for arbitrary positions (e.g. hints) and resuming a game from a checkpoint without
+ * replaying it.
+ */
+public interface SnapshotPlayer extends PokerSquaresPlayer {
+
+	/**
+	 * getPlay - gets the play position for a given card in a given grid within the allotted number of milliseconds.
+	 * The player's game state is rebuilt from the grid (quickly, and without replaying the game), so no init() or
+	 * earlier getPlay calls for this game are required; setPointSystem must have been called.  On return, the
+	 * player's state is that of the given grid with the returned play made, so the game may be continued with
+	 * getPlay(Card, long).
+	 * @param grid - current grid with Card objects or null (for empty positions); not modified.
+	 * @param card - card just drawn, not in the grid.
+	 * @param millisRemaining - remaining milliseconds for play in the rest of the player's game.
+	 * @return a 2D int array with the chosen (row, col) position for play of the given card.
+	 */
+	int[] getPlay(Card[][] grid, Card card, long millisRemaining);
+
+}
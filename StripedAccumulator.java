@@ -0,0 +1,132 @@
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * StripedAccumulator - lock-free per-candidate sums, counts and sums of squares of integer scores, updated by many
+ * rollout threads at once without contention.
+ *
+ * Like a LongAdder, the counters are split into stripes, one per worker thread, that are summed on reading.  Each
+ * stripe holds the three counters of every candidate contiguously in one AtomicLongArray, and stripes start on
+ * separate 64-byte cache lines (with a further line of padding between them), so that a worker's updates never
+ * invalidate the cache line another worker is writing.  Workers with their own stripe update it uncontended; a
+ * stripe shared by several workers (more workers than stripes) remains correct, as every update is atomic.
+ *
+ * Reads are snapshots for early stopping: each counter is exact at the moment it is read, but the counters are read
+ * at slightly different moments while workers keep adding to them.
+ */
+public class StripedAccumulator {
+
+	private static final int LONGS_PER_LINE = 8; // longs per 64-byte cache line
+	private static final int COUNT = 0, SUM = 1, SUM_SQUARES = 2, FIELDS = 3; // counter offsets per candidate
+
+	private final int numStripes; // number of stripes
+	private final int numCandidates; // number of candidates
+	private final int stride; // longs per stripe, a whole number of cache lines including padding
+	private final AtomicLongArray cells; // counters of each stripe, candidate and field
+
+	/**
+	 * Create an accumulator, with all counters zero.
+	 * @param numStripes number of stripes (usually the number of worker threads)
+	 * @param numCandidates number of candidates
+	 */
+	public StripedAccumulator(int numStripes, int numCandidates) {
+		this.numStripes = numStripes;
+		this.numCandidates = numCandidates;
+		int lines = (numCandidates * FIELDS + LONGS_PER_LINE - 1) / LONGS_PER_LINE + 1; // one line of padding
+		stride = lines * LONGS_PER_LINE;
+		cells = new AtomicLongArray(LONGS_PER_LINE + numStripes * stride); // the first stripe starts after a padding line
+	}
+
+	public int getNumStripes() {
+		return numStripes;
+	}
+
+	public int getNumCandidates() {
+		return numCandidates;
+	}
+
+	private int index(int stripe, int candidate) {
+		return LONGS_PER_LINE + stripe * stride + candidate * FIELDS;
+	}
+
+	/**
+	 * Add a score of a candidate.  Safe to call from any thread; threads with distinct stripes do not contend.
+	 * @param stripe stripe of the calling worker (taken modulo the number of stripes)
+	 * @param candidate candidate index
+	 * @param score score to add
+	 */
+	public void add(int stripe, int candidate, long score) {
+		int i = index(stripe % numStripes, candidate);
+		cells.getAndAdd(i + SUM, score);
+		cells.getAndAdd(i + SUM_SQUARES, score * score);
+		cells.getAndIncrement(i + COUNT);
+	}
+
+	/**
+	 * Zero all counters.  Not to be called while workers are adding.
+	 */
+	public void clear() {
+		for (int i = 0; i < cells.length(); i++)
+			cells.set(i, 0);
+	}
+
+	private long total(int candidate, int field) {
+		long total = 0;
+		for (int stripe = 0; stripe < numStripes; stripe++)
+			total += cells.get(index(stripe, candidate) + field);
+		return total;
+	}
+
+	/**
+	 * Get the number of scores added for a candidate.
+	 * @param candidate candidate index
+	 * @return number of scores
+	 */
+	public long getCount(int candidate) {
+		return total(candidate, COUNT);
+	}
+
+	/**
+	 * Get the sum of the scores added for a candidate.
+	 * @param candidate candidate index
+	 * @return sum of scores
+	 */
+	public long getSum(int candidate) {
+		return total(candidate, SUM);
+	}
+
+	/**
+	 * Get the number of scores added for all candidates.
+	 * @return total number of scores
+	 */
+	public long getTotalCount() {
+		long total = 0;
+		for (int candidate = 0; candidate < numCandidates; candidate++)
+			total += getCount(candidate);
+		return total;
+	}
+
+	/**
+	 * Get the mean score of a candidate.
+	 * @param candidate candidate index
+	 * @return mean score, or NaN if none has been added
+	 */
+	public double getMean(int candidate) {
+		long count = getCount(candidate); // counts first, as they are updated last
+		return count > 0 ? (double) getSum(candidate) / count : Double.NaN;
+	}
+
+	/**
+	 * Get the standard error of the mean score of a candidate.
+	 * @param candidate candidate index
+	 * @return standard error of the mean, or infinity with fewer than two scores
+	 */
+	public double getStandardError(int candidate) {
+		long count = getCount(candidate); // counts first, as they are updated last
+		if (count < 2)
+			return Double.POSITIVE_INFINITY;
+		double sum = getSum(candidate), sumSquares = total(candidate, SUM_SQUARES);
+		double variance = Math.max(0, (sumSquares - sum * sum / count) / (count - 1));
+		return Math.sqrt(variance / count);
+	}
+
+}
@@ -0,0 +1,130 @@
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * TimeControl - the time budgets of a game: the maximum thinking milliseconds per game and the milliseconds a player
+ * is given to process the point system.  STANDARD is the tournament time control (30 s and 10 s); scaled time
+ * controls keep their ratio, so that a 1,000-game evaluation at 300 ms per game takes minutes rather than hours.
+ *
+ * The main method measures how player scores degrade as the game budget shrinks, giving a score-vs-time curve
+ * that shows where Monte Carlo players saturate.
+ */
+public class TimeControl {
+
+	public static final TimeControl STANDARD = new TimeControl(PokerSquares.GAME_MILLIS, PokerSquares.POINT_SYSTEM_MILLIS); // tournament time control
+
+	private final long gameMillis; // maximum milliseconds per game
+	private final long pointSystemMillis; // maximum milliseconds to process the point system
+
+	/**
+	 * Create a time control.
+	 * @param gameMillis maximum milliseconds per game
+	 * @param pointSystemMillis maximum milliseconds for a player to process the point system
+	 */
+	public TimeControl(long gameMillis, long pointSystemMillis) {
+		this.gameMillis = gameMillis;
+		this.pointSystemMillis = pointSystemMillis;
+	}
+
+	/**
+	 * Return the standard time control scaled to the given game budget, scaling the point system budget in proportion.
+	 * @param gameMillis maximum milliseconds per game
+	 * @return scaled time control
+	 */
+	public static TimeControl scaled(long gameMillis) {
+		return new TimeControl(gameMillis, Math.max(1, PokerSquares.POINT_SYSTEM_MILLIS * gameMillis / PokerSquares.GAME_MILLIS));
+	}
+
+	public long getGameMillis() {
+		return gameMillis;
+	}
+
+	public long getPointSystemMillis() {
+		return pointSystemMillis;
+	}
+
+	/**
+	 * Create a game under this time control.
+	 * @param player Poker Squares player object
+	 * @param system Poker Squares point system
+	 * @return game with this time control's budgets
+	 */
+	public PokerSquares newGame(PokerSquaresPlayer player, PokerSquaresPointSystem system) {
+		return new PokerSquares(player, system, gameMillis, pointSystemMillis);
+	}
+
+	/**
+	 * Measure the mean score of each player at each game budget (scaled time controls) over the same deals, printing
+	 * one row per budget.  Each player object is kept across budgets, and first plays one unscored game at the largest
+	 * budget, so that JIT warm-up does not penalize the first budget measured.
+	 * @param playerFactories one factory per player
+	 * @param system point system
+	 * @param budgets game budgets in milliseconds, in increasing order
+	 * @param numGames number of games per player and budget
+	 * @param startSeed seed of the first game; successive games use successive seeds
+	 * @return score statistics indexed by budget, then player
+	 */
+	public static RunningStatistics[][] measureCurve(List<Supplier<? extends PokerSquaresPlayer>> playerFactories,
+			PokerSquaresPointSystem system, long[] budgets, int numGames, long startSeed) {
+		int numPlayers = playerFactories.size();
+		PokerSquaresPlayer[] players = new PokerSquaresPlayer[numPlayers];
+		System.out.printf("%8s", "Millis");
+		for (int p = 0; p < numPlayers; p++) {
+			players[p] = playerFactories.get(p).get();
+			PokerSquares warmup = scaled(budgets[budgets.length - 1]).newGame(players[p], system);
+			warmup.setVerbose(false);
+			warmup.setSeed(startSeed - 1);
+			warmup.play();
+			System.out.printf(" %20.20s", players[p].getName());
+		}
+		System.out.println();
+		RunningStatistics[][] stats = new RunningStatistics[budgets.length][numPlayers];
+		for (int b = 0; b < budgets.length; b++) {
+			System.out.printf("%8d", budgets[b]);
+			for (int p = 0; p < numPlayers; p++) {
+				stats[b][p] = new RunningStatistics();
+				PokerSquares game = scaled(budgets[b]).newGame(players[p], system);
+				game.setVerbose(false);
+				for (int i = 0; i < numGames; i++) {
+					game.setSeed(startSeed + i);
+					stats[b][p].add(game.play());
+				}
+				System.out.printf(" %11.2f +- %6.2f", stats[b][p].getMean(), stats[b][p].getConfidenceHalfWidth(1.96));
+			}
+			System.out.println();
+		}
+		return stats;
+	}
+
+	/* (non-Javadoc)
+	 * @see java.lang.Object#toString()
+	 */
+	public String toString() {
+		return String.format("%d ms per game, %d ms per point system", gameMillis, pointSystemMillis);
+	}
+
+	/**
+	 * Print the score-vs-budget curve of the random, flush and Monte Carlo players under the British point system.
+	 * @param args optional number of games per budget (default 10), followed by game budgets in milliseconds (default
+	 * 100 300 1000 3000)
+	 */
+	public static void main(String[] args) {
+		int numGames = args.length > 0 ? Integer.parseInt(args[0]) : 10;
+		long[] budgets = {100, 300, 1000, 3000};
+		if (args.length > 1) {
+			budgets = new long[args.length - 1];
+			for (int i = 1; i < args.length; i++)
+				budgets[i - 1] = Long.parseLong(args[i]);
+		}
+		List<Supplier<? extends PokerSquaresPlayer>> players = new ArrayList<Supplier<? extends PokerSquaresPlayer>>();
+		players.add(RandomPlayer::new);
+		players.add(FlushPlayer::new);
+		players.add(() -> new GreedyMCPlayer(2));
+		players.add(MCTSPlayer::new);
+		PokerSquaresPointSystem system = PokerSquaresPointSystem.getBritishPointSystem();
+		System.out.println(system);
+		System.out.printf("Mean score (95%% confidence half width) over %d games per budget\n", numGames);
+		measureCurve(players, system, budgets, numGames, 0L);
+	}
+}
@@ -0,0 +1,386 @@
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * TournamentCoordinator - holds a Poker Squares tournament across worker processes, possibly on several hosts.
+ *
+ * The games of a tournament are split into shards of successive seeds for one player under one point system, and
+ * each shard is sent to a TournamentWorker.  Workers are given by configuration strings: "local" starts a worker
+ * JVM on this host (talking over its standard input and output), and "host:port" connects to a worker listening on
+ * that port.  Either may be followed by "*N" for N such workers.  Each configured worker plays one shard at a time.
+ *
+ * A worker that fails, disconnects or exceeds the time its shard should take loses its shard, which goes back on
+ * the queue for another attempt (up to a maximum number of attempts); the worker is then restarted or reconnected.
+ * Once every shard is in, the game scores are totaled and normalized as in PokerSquares.playTournament, so the
+ * tournament scores are those playTournament computes for the same games.
+ */
+public class TournamentCoordinator {
+
+	public static final int DEFAULT_GAMES_PER_SHARD = 10; // default number of games per shard
+	public static final int DEFAULT_MAX_ATTEMPTS = 3; // default attempts per shard, and connection attempts per worker
+	private static final long TIMEOUT_MARGIN_MILLIS = 10000L; // allowance beyond the nominal time of a shard
+
+	/**
+	 * Shard - a run of games for one player under one point system.
+	 */
+	private static class Shard {
+		final int id; // shard identification number
+		final int system; // point system index
+		final int player; // player index
+		final int firstGame; // index of the first game among the games of the player under the point system
+		final int numGames; // number of games
+		int attempts = 0; // number of times the shard has been sent to a worker
+
+		Shard(int id, int system, int player, int firstGame, int numGames) {
+			this.id = id;
+			this.system = system;
+			this.player = player;
+			this.firstGame = firstGame;
+			this.numGames = numGames;
+		}
+	}
+
+	/**
+	 * WorkerConnection - a line-oriented connection to a worker process or remote worker.
+	 */
+	private static class WorkerConnection {
+		final Process process; // local worker process, or null
+		final Socket socket; // remote worker socket, or null
+		final BufferedReader in; // responses
+		final Writer out; // requests
+
+		WorkerConnection(String spec) throws IOException {
+			if (spec.equals("local")) {
+				String java = System.getProperty("java.home") + File.separator + "bin" + File.separator + "java";
+				process = new ProcessBuilder(java, "-cp", System.getProperty("java.class.path"), TournamentWorker.class.getName())
+						.redirectError(ProcessBuilder.Redirect.INHERIT).start();
+				socket = null;
+				in = new BufferedReader(new InputStreamReader(process.getInputStream(), StandardCharsets.US_ASCII));
+				out = new OutputStreamWriter(process.getOutputStream(), StandardCharsets.US_ASCII);
+			}
+			else {
+				int colon = spec.lastIndexOf(':');
+				if (colon < 0)
+					throw new IllegalArgumentException("Worker must be \"local\" or \"host:port\": " + spec);
+				process = null;
+				socket = new Socket();
+				socket.connect(new InetSocketAddress(spec.substring(0, colon), Integer.parseInt(spec.substring(colon + 1))));
+				in = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.US_ASCII));
+				out = new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.US_ASCII);
+			}
+		}
+
+		/**
+		 * Send a request line and return the response line.
+		 * @throws IOException if the worker is lost
+		 */
+		String request(String line) throws IOException {
+			out.write(line + "\n");
+			out.flush();
+			String response = in.readLine();
+			if (response == null)
+				throw new IOException("worker closed the connection");
+			return response;
+		}
+
+		/**
+		 * Ask the worker to quit and release the connection.
+		 */
+		void quit() {
+			try {
+				out.write("QUIT\n");
+				out.flush();
+			} catch (IOException e) {
+				// the worker is gone already
+			}
+			close();
+		}
+
+		/**
+		 * Close the connection at once, ending any request in progress with an IOException.  Safe to call from any
+		 * thread.
+		 */
+		void close() {
+			if (process != null)
+				process.destroyForcibly();
+			else {
+				try {
+					socket.close();
+				} catch (IOException e) {
+					// closing anyway
+				}
+			}
+		}
+	}
+
+	private final List<String> workers; // worker configuration strings, one per worker
+	private int gamesPerShard = DEFAULT_GAMES_PER_SHARD; // number of games per shard
+	private int maxAttempts = DEFAULT_MAX_ATTEMPTS; // attempts per shard, and consecutive connection attempts per worker
+	private long gameMillis = PokerSquares.GAME_MILLIS; // maximum milliseconds per game, sent to workers and for shard time limits
+
+	// state of the tournament in progress, guarded by this
+	private final LinkedBlockingQueue<Shard> pending = new LinkedBlockingQueue<Shard>(); // shards awaiting a worker
+	private int[][][] gameScores; // score of each game, by point system, player and game
+	private int numShards; // number of shards in the tournament
+	private int numCompleted; // number of shards completed
+	private int numLiveWorkers; // number of workers still serving
+	private String failure; // reason the tournament failed, or null
+
+	/**
+	 * Create a coordinator with the given workers.
+	 * @param workerSpecs worker configuration strings: "local" or "host:port", each optionally followed by "*N"
+	 */
+	public TournamentCoordinator(String... workerSpecs) {
+		workers = new ArrayList<String>();
+		for (String spec : workerSpecs) {
+			int star = spec.lastIndexOf('*');
+			int count = star < 0 ? 1 : Integer.parseInt(spec.substring(star + 1));
+			for (int i = 0; i < count; i++)
+				workers.add(star < 0 ? spec : spec.substring(0, star));
+		}
+		if (workers.isEmpty())
+			throw new IllegalArgumentException("No workers configured");
+	}
+
+	public void setGamesPerShard(int gamesPerShard) {
+		this.gamesPerShard = gamesPerShard;
+	}
+
+	public void setMaxAttempts(int maxAttempts) {
+		this.maxAttempts = maxAttempts;
+	}
+
+	/**
+	 * Set the maximum milliseconds per game, which workers give the players of each game and from which the time limit
+	 * of each shard is computed.
+	 * @param gameMillis maximum milliseconds per game
+	 */
+	public void setGameMillis(long gameMillis) {
+		this.gameMillis = gameMillis;
+	}
+
+	/**
+	 * Hold a Poker Squares tournament on the workers, as PokerSquares.playTournament does on this thread: each player
+	 * plays gamesPerSystem games under each point system with seeds from startSeed, and the returned tournament score
+	 * of each player is the sum over point systems of its normalized total score.
+	 * @param playerClasses fully qualified class names of the players, which must have no-argument constructors
+	 * @param systems point systems used to evaluate players in the tournament
+	 * @param gamesPerSystem the number of games that will be played by each player with each point system
+	 * @param startSeed the start seed for the pseudorandom number generator that generates card deals
+	 * @return the sum of the tournament scores for each of the given players
+	 * @throws IllegalStateException if a shard fails on every attempt, a worker reports an error, or all workers are lost
+	 * @throws InterruptedException if interrupted while waiting for the workers
+	 */
+	public double[] playTournament(List<String> playerClasses, List<PokerSquaresPointSystem> systems, int gamesPerSystem,
+			long startSeed) throws InterruptedException {
+		String[] scoreTables = new String[systems.size()];
+		for (int s = 0; s < systems.size(); s++)
+			scoreTables[s] = TournamentWorker.formatScoreTable(systems.get(s));
+		synchronized (this) {
+			pending.clear();
+			gameScores = new int[systems.size()][playerClasses.size()][gamesPerSystem];
+			numShards = 0;
+			for (int s = 0; s < systems.size(); s++)
+				for (int p = 0; p < playerClasses.size(); p++)
+					for (int g = 0; g < gamesPerSystem; g += gamesPerShard)
+						pending.add(new Shard(numShards++, s, p, g, Math.min(gamesPerShard, gamesPerSystem - g)));
+			numCompleted = 0;
+			numLiveWorkers = workers.size();
+			failure = null;
+		}
+
+		ScheduledExecutorService watchdog = Executors.newSingleThreadScheduledExecutor(runnable -> {
+			Thread thread = new Thread(runnable, "tournament-watchdog");
+			thread.setDaemon(true);
+			return thread;
+		});
+		List<Thread> threads = new ArrayList<Thread>();
+		for (String spec : workers) {
+			Thread thread = new Thread(() -> runWorker(spec, playerClasses, scoreTables, startSeed, watchdog), "tournament-" + spec);
+			thread.setDaemon(true);
+			thread.start();
+			threads.add(thread);
+		}
+		try {
+			synchronized (this) {
+				while (numCompleted < numShards && failure == null && numLiveWorkers > 0)
+					wait();
+				if (failure == null && numCompleted < numShards)
+					failure = "all workers lost";
+			}
+		} finally {
+			synchronized (this) {
+				if (failure == null && numCompleted < numShards)
+					failure = "interrupted";
+				notifyAll();
+			}
+			for (Thread thread : threads)
+				thread.join();
+			watchdog.shutdownNow();
+		}
+		if (failure != null)
+			throw new IllegalStateException("Tournament failed: " + failure);
+
+		double[] tournamentScores = new double[playerClasses.size()];
+		for (int s = 0; s < systems.size(); s++) {
+			System.out.println("Point System:\n" + systems.get(s));
+			int[] totalScores = new int[playerClasses.size()];
+			for (int p = 0; p < playerClasses.size(); p++) {
+				for (int score : gameScores[s][p])
+					totalScores[p] += score;
+				System.out.printf("Player \"%s\" total score: %d\n", playerClasses.get(p), totalScores[p]);
+			}
+			double[] normalizedTotals = PokerSquares.normalizeTotalScores(totalScores);
+			for (int p = 0; p < playerClasses.size(); p++) {
+				System.out.println("Player \"" + playerClasses.get(p) + "\" normalized score: " + normalizedTotals[p]);
+				tournamentScores[p] += normalizedTotals[p];
+			}
+		}
+		System.out.printf("%20s %s\n", "Player", "Tournament Score");
+		for (int p = 0; p < playerClasses.size(); p++)
+			System.out.printf("%20s %f\n", playerClasses.get(p), tournamentScores[p]);
+		return tournamentScores;
+	}
+
+	/**
+	 * Serve shards to one worker until the tournament ends, reconnecting after lost connections and giving up on the
+	 * worker after maxAttempts consecutive failures.
+	 */
+	private void runWorker(String spec, List<String> playerClasses, String[] scoreTables, long startSeed,
+			ScheduledExecutorService watchdog) {
+		WorkerConnection connection = null;
+		int failures = 0;
+		try {
+			while (failures < maxAttempts) {
+				Shard shard = nextShard();
+				if (shard == null)
+					return;
+				try {
+					if (connection == null)
+						connection = new WorkerConnection(spec);
+				} catch (IOException | RuntimeException e) {
+					System.err.printf("Worker %s unavailable: %s\n", spec, e);
+					pending.add(shard);
+					failures++;
+					Thread.sleep(100L * failures);
+					continue;
+				}
+				String request = String.format("SHARD %d %s %s %d %d %d", shard.id, playerClasses.get(shard.player),
+						scoreTables[shard.system], startSeed + shard.firstGame, shard.numGames, gameMillis);
+				long timeoutMillis = shard.numGames * gameMillis + PokerSquares.POINT_SYSTEM_MILLIS + TIMEOUT_MARGIN_MILLIS;
+				final WorkerConnection c = connection;
+				ScheduledFuture<?> timeout = watchdog.schedule(c::close, timeoutMillis, TimeUnit.MILLISECONDS);
+				String response;
+				try {
+					response = connection.request(request);
+				} catch (IOException e) {
+					System.err.printf("Worker %s lost shard %d: %s\n", spec, shard.id, e);
+					connection.close();
+					connection = null;
+					failures++;
+					retry(shard);
+					continue;
+				} finally {
+					timeout.cancel(false);
+				}
+				failures = 0;
+				complete(shard, response);
+			}
+			System.err.printf("Worker %s abandoned after %d consecutive failures\n", spec, failures);
+		} catch (InterruptedException e) {
+			// tournament over
+		} finally {
+			if (connection != null)
+				connection.quit();
+			synchronized (this) {
+				numLiveWorkers--;
+				notifyAll();
+			}
+		}
+	}
+
+	/**
+	 * Wait for the next pending shard.
+	 * @return the next pending shard, or null if the tournament has ended
+	 */
+	private Shard nextShard() throws InterruptedException {
+		while (true) {
+			synchronized (this) {
+				if (failure != null || numCompleted == numShards)
+					return null;
+			}
+			Shard shard = pending.poll(100, TimeUnit.MILLISECONDS);
+			if (shard != null)
+				return shard;
+		}
+	}
+
+	/**
+	 * Requeue a lost shard, or fail the tournament if it has used all its attempts.
+	 */
+	private synchronized void retry(Shard shard) {
+		if (++shard.attempts < maxAttempts)
+			pending.add(shard);
+		else if (failure == null) {
+			failure = "shard " + shard.id + " lost " + shard.attempts + " times";
+			notifyAll();
+		}
+	}
+
+	/**
+	 * Record the response to a shard, or fail the tournament if the response is not its result.
+	 */
+	private synchronized void complete(Shard shard, String response) {
+		String[] tokens = response.split(" ");
+		int[] scores = null;
+		if (tokens.length == shard.numGames + 2 && tokens[0].equals("RESULT") && tokens[1].equals(Integer.toString(shard.id))) {
+			try {
+				scores = new int[shard.numGames];
+				for (int i = 0; i < shard.numGames; i++)
+					scores[i] = Integer.parseInt(tokens[i + 2]);
+			} catch (NumberFormatException e) {
+				scores = null;
+			}
+		}
+		if (scores != null) {
+			System.arraycopy(scores, 0, gameScores[shard.system][shard.player], shard.firstGame, shard.numGames);
+			numCompleted++;
+		}
+		else if (failure == null)
+			failure = "shard " + shard.id + ": " + response;
+		notifyAll();
+	}
+
+	/**
+	 * Demonstrate a distributed tournament.
+	 * @param args worker configuration strings (default: "local*N" for N available processors)
+	 * @throws InterruptedException if interrupted while waiting for the workers
+	 */
+	public static void main(String[] args) throws InterruptedException {
+		String[] workerSpecs = args.length > 0 ? args : new String[] {"local*" + Runtime.getRuntime().availableProcessors()};
+		System.out.println("Workers: " + Arrays.toString(workerSpecs));
+		List<String> players = Arrays.asList(RandomPlayer.class.getName(), FlushPlayer.class.getName());
+		List<PokerSquaresPointSystem> systems = new ArrayList<PokerSquaresPointSystem>();
+		PokerSquaresPointSystem.setSeed(42L);
+		systems.add(PokerSquaresPointSystem.getBritishPointSystem());
+		systems.add(PokerSquaresPointSystem.getAmericanPointSystem());
+		TournamentCoordinator coordinator = new TournamentCoordinator(workerSpecs);
+		coordinator.setGamesPerShard(5);
+		coordinator.playTournament(players, systems, 20, 0L);
+	}
+}
@@ -0,0 +1,161 @@
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.PrintStream;
+import java.io.Writer;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * TournamentWorker - plays shards of a tournament on behalf of a TournamentCoordinator.
+ *
+ * A shard is a run of games played by one player under one point system with successive seeds, exactly as
+ * PokerSquares.playSequence plays them.  Requests and responses are single text lines:
+ *
+ *   SHARD id playerClass scoreTable startSeed numGames gameMillis   (scoreTable: the 10 hand scores, comma-separated)
+ *   RESULT id score1 ... scoreN
+ *   ERR id message
+ *   QUIT
+ *
+ * Players are created by class name with their no-argument constructor, and each player object is kept for the
+ * life of the connection, as playTournament keeps one object per player.  Consecutive shards with the same player
+ * and point system continue with the same game, so the player is given the point system only once.
+ *
+ * Run with no arguments, a worker serves one coordinator over standard input and output (game output is sent to
+ * standard error); this is how the coordinator starts local workers.  Run with a port, it accepts coordinator
+ * connections on that port, serving each on its own thread, so one worker JVM on a remote host can play as many
+ * shards at once as the coordinator opens connections to it.
+ */
+public class TournamentWorker {
+
+	private final Map<String, PokerSquaresPlayer> players = new HashMap<String, PokerSquaresPlayer>(); // players by class name
+	private PokerSquares game; // game of the previous shard
+	private String gameKey; // player class and score table of the previous shard
+
+	/**
+	 * Serve shard requests from the given reader, writing responses to the given writer, until QUIT or end of input.
+	 * @param in source of request lines
+	 * @param out destination of response lines
+	 * @throws IOException if the connection fails
+	 */
+	public void serve(BufferedReader in, Writer out) throws IOException {
+		String line;
+		while ((line = in.readLine()) != null) {
+			String[] tokens = line.trim().split("\\s+");
+			if (tokens[0].equals("QUIT"))
+				break;
+			String id = tokens.length > 1 ? tokens[1] : "-";
+			String response;
+			try {
+				if (!tokens[0].equals("SHARD") || tokens.length != 7)
+					throw new IllegalArgumentException("malformed request: " + line);
+				int[] scores = playShard(tokens[2], parseScoreTable(tokens[3]), Long.parseLong(tokens[4]), Integer.parseInt(tokens[5]),
+						Long.parseLong(tokens[6]));
+				StringBuilder sb = new StringBuilder("RESULT ").append(id);
+				for (int score : scores)
+					sb.append(' ').append(score);
+				response = sb.toString();
+			} catch (Exception e) {
+				response = "ERR " + id + " " + e.toString().replace('\n', ' ');
+			}
+			out.write(response + "\n");
+			out.flush();
+		}
+	}
+
+	/**
+	 * Play a shard of games.
+	 * @param playerClass fully qualified class name of the player
+	 * @param scoreTable hand scores of the point system, indexed by PokerHand id
+	 * @param startSeed seed of the first game; successive games use successive seeds
+	 * @param numGames number of games
+	 * @param gameMillis maximum milliseconds per game
+	 * @return score of each game
+	 * @throws ReflectiveOperationException if the player cannot be created
+	 */
+	private int[] playShard(String playerClass, int[] scoreTable, long startSeed, int numGames, long gameMillis)
+			throws ReflectiveOperationException {
+		String key = playerClass + " " + Arrays.toString(scoreTable);
+		if (!key.equals(gameKey)) {
+			PokerSquaresPlayer player = players.get(playerClass);
+			if (player == null) {
+				player = Class.forName(playerClass).asSubclass(PokerSquaresPlayer.class).getDeclaredConstructor().newInstance();
+				players.put(playerClass, player);
+			}
+			game = new PokerSquares(player, new PokerSquaresPointSystem(scoreTable));
+			game.setVerbose(false);
+			gameKey = key;
+		}
+		game.setGameMillis(gameMillis);
+		int[] scores = new int[numGames];
+		for (int i = 0; i < numGames; i++) {
+			game.setSeed(startSeed + i);
+			scores[i] = game.play();
+		}
+		return scores;
+	}
+
+	/**
+	 * Parse a comma-separated score table.
+	 */
+	private static int[] parseScoreTable(String s) {
+		String[] fields = s.split(",");
+		if (fields.length != PokerHand.NUM_HANDS)
+			throw new IllegalArgumentException("score table needs " + PokerHand.NUM_HANDS + " entries: " + s);
+		int[] scoreTable = new int[fields.length];
+		for (int i = 0; i < fields.length; i++)
+			scoreTable[i] = Integer.parseInt(fields[i]);
+		return scoreTable;
+	}
+
+	/**
+	 * Format a score table for a SHARD request.
+	 * @param system point system
+	 * @return comma-separated hand scores of the point system
+	 */
+	public static String formatScoreTable(PokerSquaresPointSystem system) {
+		StringBuilder sb = new StringBuilder();
+		for (int score : system.getScoreTable()) {
+			if (sb.length() > 0)
+				sb.append(',');
+			sb.append(score);
+		}
+		return sb.toString();
+	}
+
+	/**
+	 * Serve a coordinator over standard input and output, or, given a port, serve coordinator connections on it.
+	 * @param args optional port to listen on
+	 * @throws IOException if the port cannot be opened or standard input/output fail
+	 */
+	public static void main(String[] args) throws IOException {
+		if (args.length == 0) {
+			PrintStream protocolOut = System.out;
+			System.setOut(System.err); // keep player and game output off the protocol stream
+			new TournamentWorker().serve(new BufferedReader(new InputStreamReader(System.in, StandardCharsets.US_ASCII)),
+					new OutputStreamWriter(protocolOut, StandardCharsets.US_ASCII));
+			return;
+		}
+		System.setOut(System.err);
+		try (ServerSocket server = new ServerSocket(Integer.parseInt(args[0]))) {
+			System.err.println("Tournament worker listening on port " + server.getLocalPort());
+			while (true) {
+				Socket socket = server.accept();
+				Thread thread = new Thread(() -> {
+					try (Socket s = socket) {
+						new TournamentWorker().serve(new BufferedReader(new InputStreamReader(s.getInputStream(), StandardCharsets.US_ASCII)),
+								new OutputStreamWriter(s.getOutputStream(), StandardCharsets.US_ASCII));
+					} catch (IOException e) {
+						System.err.println("Coordinator connection lost: " + e);
+					}
+				}, "tournament-worker");
+				thread.start();
+			}
+		}
+	}
+}
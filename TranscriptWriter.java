@@ -0,0 +1,224 @@
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * TranscriptWriter - a buffered writer of game transcripts (verbose play), so that printing every grid of a batch of
+ * games costs little more than playing them silently.
+ *
+ * Text and grids are formatted into a reusable StringBuilder and encoded into a reusable byte buffer, which reaches
+ * the channel only when it is full or flushed, rather than with some 35 formatted prints per grid.  An asynchronous
+ * writer double-buffers: a full (or flushed) buffer is handed to a writer thread, and formatting continues into the
+ * other buffer while it is written, waiting only if the writer falls a whole buffer behind.  Writing is then out of
+ * step with any other output to the same destination until flush(true) or close().
+ *
+ * A writer is used by one thread at a time (besides its own writer thread).  Write errors are thrown as
+ * UncheckedIOExceptions, from the asynchronous writer at the next hand-off, flush or close.
+ */
+public class TranscriptWriter implements AutoCloseable {
+
+	public static final int DEFAULT_BUFFER_BYTES = 1 << 16; // default bytes per buffer
+
+	private final WritableByteChannel channel; // destination
+	private final boolean async; // whether buffers are written by a writer thread
+	private final StringBuilder sb = new StringBuilder(); // reusable text being formatted
+	private ByteBuffer filling; // buffer being filled
+	private ByteBuffer spare; // buffer free for filling next, or null while it is being written
+	private ByteBuffer pending = null; // buffer handed to the writer thread and not yet taken, or null
+	private IOException error = null; // first error of the writer thread, or null
+	private boolean closed = false; // whether the writer has been closed
+	private final Thread writerThread; // writes handed-off buffers, or null if synchronous
+
+	/**
+	 * Create a transcript writer to the given channel.
+	 * @param channel destination
+	 * @param async whether to write on a writer thread (double-buffered)
+	 * @param bufferBytes bytes per buffer
+	 */
+	public TranscriptWriter(WritableByteChannel channel, boolean async, int bufferBytes) {
+		this.channel = channel;
+		this.async = async;
+		filling = ByteBuffer.allocate(bufferBytes);
+		spare = async ? ByteBuffer.allocate(bufferBytes) : null;
+		if (async) {
+			writerThread = new Thread(this::writeLoop, "TranscriptWriter");
+			writerThread.setDaemon(true);
+			writerThread.start();
+		}
+		else
+			writerThread = null;
+	}
+
+	/**
+	 * Create a transcript writer to the given stream with default sized buffers.  Writing to System.out synchronously
+	 * keeps the transcript in order with other printing, provided that it is flushed before such printing.
+	 * @param out destination stream
+	 * @param async whether to write on a writer thread (double-buffered)
+	 */
+	public TranscriptWriter(OutputStream out, boolean async) {
+		this(Channels.newChannel(out), async, DEFAULT_BUFFER_BYTES);
+	}
+
+	/**
+	 * Append text.
+	 * @param text text to append
+	 * @return this writer
+	 */
+	public TranscriptWriter append(CharSequence text) {
+		sb.append(text);
+		encode();
+		return this;
+	}
+
+	/**
+	 * Append a grid and its score, as printed by PokerSquaresPointSystem.printGrid.
+	 * @param system point system scoring the grid
+	 * @param grid grid with Card objects or null (for empty positions)
+	 * @return this writer
+	 */
+	public TranscriptWriter appendGrid(PokerSquaresPointSystem system, Card[][] grid) {
+		system.appendGrid(grid, sb);
+		encode();
+		return this;
+	}
+
+	/**
+	 * Encode the formatted text into the filling buffer, handing off full buffers.  Characters outside ASCII are
+	 * encoded as UTF-8.
+	 */
+	private void encode() {
+		for (int i = 0; i < sb.length(); i++) {
+			char c = sb.charAt(i);
+			if (c < 0x80) {
+				if (!filling.hasRemaining())
+					handOff(false);
+				filling.put((byte) c);
+			}
+			else {
+				int end = Character.isHighSurrogate(c) && i + 1 < sb.length() ? i + 2 : i + 1;
+				for (byte b : sb.substring(i, end).getBytes(StandardCharsets.UTF_8)) {
+					if (!filling.hasRemaining())
+						handOff(false);
+					filling.put(b);
+				}
+				i = end - 1;
+			}
+		}
+		sb.setLength(0);
+	}
+
+	/**
+	 * Write out the filling buffer: synchronously, or by handing it to the writer thread, and optionally wait until
+	 * all text handed off has been written.
+	 */
+	private void handOff(boolean wait) {
+		if (filling.position() > 0) {
+			filling.flip();
+			if (!async) {
+				try {
+					while (filling.hasRemaining())
+						channel.write(filling);
+				} catch (IOException e) {
+					throw new UncheckedIOException(e);
+				}
+				filling.clear();
+			}
+			else
+				synchronized (this) {
+					while (spare == null && error == null) // the writer has yet to finish the other buffer
+						awaitWriter();
+					checkError();
+					pending = filling;
+					filling = spare;
+					spare = null;
+					notifyAll();
+				}
+		}
+		if (async && wait)
+			synchronized (this) {
+				while (spare == null && error == null)
+					awaitWriter();
+				checkError();
+			}
+	}
+
+	private void awaitWriter() {
+		try {
+			wait();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("Interrupted while waiting for the transcript writer", e);
+		}
+	}
+
+	private void checkError() {
+		if (error != null)
+			throw new UncheckedIOException(error);
+	}
+
+	/**
+	 * Write handed-off buffers to the channel until closed.
+	 */
+	private void writeLoop() {
+		while (true) {
+			ByteBuffer buffer;
+			synchronized (this) {
+				while (pending == null && !closed)
+					try {
+						wait();
+					} catch (InterruptedException e) {
+						return;
+					}
+				if (pending == null)
+					return;
+				buffer = pending;
+				pending = null;
+			}
+			IOException failure = null;
+			try {
+				while (buffer.hasRemaining())
+					channel.write(buffer);
+			} catch (IOException e) {
+				failure = e;
+			}
+			buffer.clear();
+			synchronized (this) {
+				if (failure != null && error == null)
+					error = failure;
+				spare = buffer;
+				notifyAll();
+			}
+		}
+	}
+
+	/**
+	 * Write out the text appended so far.  An asynchronous writer only hands it to its writer thread, unless asked to
+	 * wait until it has been written.
+	 * @param wait whether to wait until all text appended so far has been written
+	 */
+	public void flush(boolean wait) {
+		handOff(wait);
+	}
+
+	/**
+	 * Write out all text appended and stop the writer thread, if any.  The channel is left open.
+	 */
+	@Override
+	public void close() {
+		if (closed)
+			return;
+		try {
+			handOff(true);
+		} finally {
+			synchronized (this) {
+				closed = true;
+				notifyAll();
+			}
+		}
+	}
+
+}